@@ -241,6 +241,9 @@ public class Vars implements Loadable{
     public static Maps maps;
     public static WaveSpawner spawner;
     public static BlockIndexer indexer;
+    public static UnitQueryCache unitQueries;
+    public static LogicProfiler logicProfiler;
+    public static Dormancy dormancy;
     public static Pathfinder pathfinder;
     public static ControlPathfinder controlPath;
     public static FogControl fogControl;
@@ -313,6 +316,9 @@ public class Vars implements Loadable{
         maps = new Maps();
         spawner = new WaveSpawner();
         indexer = new BlockIndexer();
+        unitQueries = new UnitQueryCache();
+        logicProfiler = new LogicProfiler();
+        dormancy = new Dormancy();
         pathfinder = new Pathfinder();
         controlPath = new ControlPathfinder();
         fogControl = new FogControl();
@@ -23,6 +23,12 @@ public class ControlPathfinder{
     private static final int updateFPS = 60;
     private static final int updateInterval = 1000 / updateFPS;
     private static final int wallImpassableCap = 1_000_000;
+    /** Maximum amount of searches that run at the same time on one thread, each with its own world-sized context. */
+    private static final int maxSearches = 4;
+    /** Total tiles that the search contexts of all threads may cover; each tile costs 12 bytes per context. Every thread gets at least one context. */
+    private static final int maxContextTiles = 2_000_000;
+    /** Size of the square clusters the map is split into for coarse searches, in tiles. */
+    static final int clusterSize = 16;
 
     public static final PathCost
 
@@ -65,6 +71,8 @@ public class ControlPathfinder{
 
     //static access probably faster than object access
     static int wwidth, wheight;
+    //size of the map in clusters
+    static int cwidth, cheight;
     //increments each tile change
     static volatile int worldUpdateId;
 
@@ -74,6 +82,8 @@ public class ControlPathfinder{
     int lastTargetId = 1;
     /** requests per-unit */
     ObjectMap<Unit, PathRequest> requests = new ObjectMap<>();
+    /** requests by the cluster their unit started in, for finding paths to share */
+    IntMap<Seq<PathRequest>> clusterRequests = new IntMap<>();
 
     public ControlPathfinder(){
 
@@ -81,6 +91,8 @@ public class ControlPathfinder{
             stop();
             wwidth = world.width();
             wheight = world.height();
+            cwidth = Mathf.ceil(wwidth / (float)clusterSize);
+            cheight = Mathf.ceil(wheight / (float)clusterSize);
 
             start();
         });
@@ -96,6 +108,14 @@ public class ControlPathfinder{
             if(e.tile.solid()){
                 worldUpdateId ++;
             }
+
+            //cluster summaries around the tile need to be recalculated; this includes neighbors, as buildings can span multiple clusters
+            if(threads != null){
+                int cx = e.tile.x / clusterSize, cy = e.tile.y / clusterSize;
+                for(var thread : threads){
+                    thread.queue.post(() -> thread.invalidateClusters(cx, cy));
+                }
+            }
         });
 
         Events.on(ResetEvent.class, event -> stop());
@@ -106,8 +126,8 @@ public class ControlPathfinder{
                 //skipped N update -> drop it
                 if(req.lastUpdateId <= state.updateId - 10){
                     //concurrent modification!
-                    Core.app.post(() -> requests.remove(req.unit));
-                    req.thread.queue.post(() -> req.thread.requests.remove(req));
+                    Core.app.post(() -> removeRequest(req));
+                    req.thread.queue.post(() -> req.thread.remove(req));
                 }
             }
         });
@@ -116,7 +136,8 @@ public class ControlPathfinder{
             if(!showDebug) return;
 
             for(var req : requests.values()){
-                if(req.frontier == null) continue;
+                var context = req.context;
+                if(!req.done && context == null) continue;
                 Draw.draw(Layer.overlayUI, () -> {
                     if(req.done){
                         int len = req.result.size;
@@ -139,9 +160,9 @@ public class ControlPathfinder{
                         }
                     }else{
                         var view = Core.camera.bounds(Tmp.r1);
-                        int len = req.frontier.size;
-                        float[] weights = req.frontier.weights;
-                        int[] poses = req.frontier.queue;
+                        int len = context.frontier.size;
+                        float[] weights = context.frontier.weights;
+                        int[] poses = context.frontier.queue;
                         for(int i = 0; i < Math.min(len, 1000); i++){
                             int pos = poses[i];
                             if(view.contains(pos % wwidth * tilesize, pos / wwidth * tilesize)){
@@ -214,7 +235,27 @@ public class ControlPathfinder{
             //raycast immediately when done
             req.raycastTimer = 9999f;
 
+            //units that start close to each other and go to the same place (e.g. a commanded group) can share a finished path;
+            //clusters are not always connected internally, so the start of the other path must be reachable in a straight line
+            int start = world.packArray(unit.tileX(), unit.tileY()), goal = world.packArray(World.toTile(destination.x), World.toTile(destination.y));
+            req.cluster = cluster(start);
+
+            var nearby = clusterRequests.get(req.cluster);
+            if(nearby == null) clusterRequests.put(req.cluster, nearby = new Seq<>(false));
+
+            for(var other : nearby){
+                //the worker thread may be searching again, so only the published copy of a finished path is read
+                int[] path = other.finished;
+                int otherStart = other.finishedStart;
+                if(path != null && other.team == team && other.cost == costType && other.finishedGoal == goal &&
+                    cluster(otherStart) == req.cluster && !permissiveRaycast(team, costType, unit.tileX(), unit.tileY(), otherStart % wwidth, otherStart / wwidth)){
+                    req.share(path, goal);
+                    break;
+                }
+            }
+
             requests.put(unit, req);
+            nearby.add(req);
 
             //add to thread so it gets processed next update
             thread.queue.post(() -> thread.requests.add(req));
@@ -317,8 +358,10 @@ public class ControlPathfinder{
 
         //TODO currently capped at 6 threads, might be a good idea to make it more?
         threads = new PathfindThread[Mathf.clamp(Runtime.getRuntime().availableProcessors() - 1, 1, 6)];
+        //more than one search at a time per thread only on maps small enough for the extra contexts to be cheap
+        int searches = Mathf.clamp(maxContextTiles / Math.max(wwidth * wheight * threads.length, 1), 1, maxSearches);
         for(int i = 0; i < threads.length; i ++){
-            threads[i] = new PathfindThread("ControlPathfindThread-" + i);
+            threads[i] = new PathfindThread("ControlPathfindThread-" + i, searches);
             threads[i].setPriority(Thread.MIN_PRIORITY);
             threads[i].setDaemon(true);
             threads[i].start();
@@ -334,6 +377,19 @@ public class ControlPathfinder{
         }
         threads = null;
         requests.clear();
+        clusterRequests.clear();
+    }
+
+    private void removeRequest(PathRequest req){
+        if(requests.get(req.unit) == req){
+            requests.remove(req.unit);
+        }
+
+        var nearby = clusterRequests.get(req.cluster);
+        if(nearby != null){
+            nearby.remove(req, true);
+            if(nearby.isEmpty()) clusterRequests.remove(req.cluster);
+        }
     }
 
     private static boolean raycast(int team, PathCost type, int x1, int y1, int x2, int y2){
@@ -405,6 +461,11 @@ public class ControlPathfinder{
         return world.tiles.geti(pos);
     }
 
+    /** @return the index of the cluster that a tile position is in. */
+    static int cluster(int pos){
+        return (pos % wwidth) / clusterSize + (pos / wwidth) / clusterSize * cwidth;
+    }
+
     //distance heuristic: manhattan
     private static float heuristic(int a, int b){
         int x = a % wwidth, x2 = b % wwidth, y = a / wwidth, y2 = b / wwidth;
@@ -447,9 +508,142 @@ public class ControlPathfinder{
         Seq<PathRequest> requests = new Seq<>();
         /** volatile for access across threads */
         volatile int requestSize;
-
-        public PathfindThread(String name){
+        /** coarse cluster graphs for each team and cost type that this thread has searched for */
+        Seq<ClusterGraph> graphs = new Seq<>();
+        /** search contexts that no request holds; they are created when needed, up to maxContexts */
+        Seq<SearchContext> contexts = new Seq<>();
+        int createdContexts;
+        final int maxContexts;
+        /** requests waiting for a context, in order */
+        Queue<PathRequest> waiting = new Queue<>();
+
+        /** coarse search state, indexed by cluster */
+        PathfindQueue clusterFrontier = new PathfindQueue();
+        float[] clusterCosts = {};
+        int[] clusterFrom = {}, clusterSearches = {};
+        int clusterSearch;
+
+        public PathfindThread(String name, int maxContexts){
             super(name);
+            this.maxContexts = maxContexts;
+        }
+
+        /** @return a free search context, or null if all of them are in use. */
+        @Nullable SearchContext borrowContext(){
+            if(contexts.any()) return contexts.pop();
+            if(createdContexts >= maxContexts) return null;
+
+            createdContexts++;
+            return new SearchContext(wwidth * wheight);
+        }
+
+        void releaseContext(PathRequest req){
+            if(req.context != null){
+                contexts.add(req.context);
+                req.context = null;
+            }
+        }
+
+        /** Removes a request and frees anything it holds. */
+        void remove(PathRequest req){
+            requests.remove(req);
+            releaseContext(req);
+            if(req.waiting){
+                waiting.remove(r -> r == req);
+                req.waiting = false;
+            }
+        }
+
+        ClusterGraph graph(int team, PathCost cost){
+            for(var graph : graphs){
+                if(graph.team == team && graph.cost == cost) return graph;
+            }
+
+            var graph = new ClusterGraph(team, cost);
+            graphs.add(graph);
+            return graph;
+        }
+
+        /** Marks a cluster and its neighbors as outdated in every graph. */
+        void invalidateClusters(int cx, int cy){
+            for(var graph : graphs){
+                for(int x = Math.max(cx - 1, 0); x <= Math.min(cx + 1, cwidth - 1); x++){
+                    for(int y = Math.max(cy - 1, 0); y <= Math.min(cy + 1, cheight - 1); y++){
+                        graph.dirty[x + y * cwidth] = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Runs an A* search over the clusters of a graph, and marks the clusters along the found path and around it in the corridor.
+         * @return false if no path between the clusters exists, in which case no path between any tiles in them exists either.
+         */
+        boolean findCorridor(ClusterGraph graph, int start, int goal, boolean[] corridor){
+            int total = cwidth * cheight;
+            if(clusterSearches.length != total){
+                clusterCosts = new float[total];
+                clusterFrom = new int[total];
+                clusterSearches = new int[total];
+            }
+
+            int search = ++clusterSearch;
+            PathfindQueue frontier = clusterFrontier;
+
+            frontier.clear();
+            frontier.add(start, 0);
+            clusterCosts[start] = 0;
+            clusterFrom[start] = start;
+            clusterSearches[start] = search;
+
+            while(frontier.size > 0){
+                int current = frontier.poll();
+
+                if(current == goal){
+                    for(int i = 0; i < total; i++){
+                        corridor[i] = false;
+                    }
+
+                    //allow the fine search to use the path clusters and everything next to them
+                    while(true){
+                        int cx = current % cwidth, cy = current / cwidth;
+                        for(int x = Math.max(cx - 1, 0); x <= Math.min(cx + 1, cwidth - 1); x++){
+                            for(int y = Math.max(cy - 1, 0); y <= Math.min(cy + 1, cheight - 1); y++){
+                                corridor[x + y * cwidth] = true;
+                            }
+                        }
+
+                        if(current == start) break;
+                        current = clusterFrom[current];
+                    }
+                    return true;
+                }
+
+                graph.update(current);
+                int cx = current % cwidth, cy = current / cwidth, links = graph.links[current];
+
+                for(int d = 0; d < 4; d++){
+                    if((links & (1 << d)) == 0) continue;
+
+                    Point2 point = Geometry.d4[d];
+                    int next = cx + point.x + (cy + point.y) * cwidth;
+
+                    graph.update(next);
+                    if(graph.costs[next] == impassable) continue;
+
+                    //entering a cluster costs roughly one cluster width of its average tile cost
+                    float newCost = clusterCosts[current] + graph.costs[next] * clusterSize;
+
+                    if(clusterSearches[next] != search || newCost < clusterCosts[next]){
+                        clusterSearches[next] = search;
+                        clusterCosts[next] = newCost;
+                        clusterFrom[next] = current;
+                        frontier.add(next, newCost + (Math.abs(next % cwidth - goal % cwidth) + Math.abs(next / cwidth - goal / cwidth)) * clusterSize);
+                    }
+                }
+            }
+
+            return false;
         }
 
         @Override
@@ -462,10 +656,16 @@ public class ControlPathfinder{
                         queue.run();
                         requestSize = requests.size;
 
-                        //total update time no longer than maxUpdate
+                        //total update time no longer than maxUpdate, split between the searches holding a context;
+                        //a search that runs out of time resumes on the next update, so long searches never block short ones
+                        int searching = 0;
+                        for(var req : requests){
+                            if(req.context != null) searching++;
+                        }
+                        long budget = maxUpdate / Math.max(Math.min(searching + waiting.size, maxContexts), 1);
+
                         for(var req : requests){
-                            //TODO this is flawed with many paths
-                            req.update(maxUpdate / requests.size);
+                            req.update(budget);
                         }
                     }
 
@@ -483,6 +683,115 @@ public class ControlPathfinder{
         }
     }
 
+    /**
+     * Coarse summary of the map for a single team and cost type, used to restrict A* searches to a corridor of clusters.
+     * Clusters are recalculated lazily after tile changes. Pathfinding thread access only.
+     */
+    static class ClusterGraph{
+        final int team;
+        final PathCost cost;
+        /** average cost of the passable tiles in each cluster, or impassable if there are none */
+        final float[] costs;
+        /** bitmask of the Geometry.d4 directions each cluster can be left through */
+        final byte[] links;
+        /** clusters that need to be recalculated before use */
+        final boolean[] dirty;
+
+        ClusterGraph(int team, PathCost cost){
+            this.team = team;
+            this.cost = cost;
+
+            int total = cwidth * cheight;
+            costs = new float[total];
+            links = new byte[total];
+            dirty = new boolean[total];
+
+            for(int i = 0; i < total; i++){
+                dirty[i] = true;
+            }
+        }
+
+        void update(int cluster){
+            if(!dirty[cluster]) return;
+            dirty[cluster] = false;
+
+            int cx = cluster % cwidth, cy = cluster / cwidth;
+            int x1 = cx * clusterSize, y1 = cy * clusterSize, x2 = Math.min(x1 + clusterSize, wwidth), y2 = Math.min(y1 + clusterSize, wheight);
+
+            //enemy walls are left out of the average, as the fine search only counts them once per path
+            long total = 0;
+            int passable = 0, walls = 0;
+            for(int y = y1; y < y2; y++){
+                for(int x = x1; x < x2; x++){
+                    int value = cost(team, cost, x + y * wwidth);
+                    if(value == impassable) continue;
+
+                    if(value >= wallImpassableCap){
+                        walls++;
+                    }else{
+                        total += value;
+                        passable++;
+                    }
+                }
+            }
+
+            costs[cluster] = passable > 0 ? total / (float)passable : walls > 0 ? wallImpassableCap : impassable;
+
+            int mask = 0;
+            for(int d = 0; d < 4; d++){
+                Point2 point = Geometry.d4[d];
+                int ox = cx + point.x, oy = cy + point.y;
+                if(ox < 0 || oy < 0 || ox >= cwidth || oy >= cheight) continue;
+
+                //the clusters are linked if any pair of tiles across their shared border is passable
+                for(int i = 0; i < clusterSize; i++){
+                    int x = point.x == 0 ? x1 + i : point.x > 0 ? x2 - 1 : x1;
+                    int y = point.y == 0 ? y1 + i : point.y > 0 ? y2 - 1 : y1;
+                    if(x >= x2 || y >= y2) break;
+
+                    if(cost(team, cost, x + y * wwidth) != impassable && cost(team, cost, x + point.x + (y + point.y) * wwidth) != impassable){
+                        mask |= 1 << d;
+                        break;
+                    }
+                }
+            }
+
+            links[cluster] = (byte)mask;
+        }
+    }
+
+    /**
+     * Flat A* state sized to the world, which requests borrow from their thread while searching.
+     * Search IDs mark which entries belong to the current search, so the arrays never need to be cleared.
+     */
+    static class SearchContext{
+        final PathfindQueue frontier = new PathfindQueue(20);
+        /** node index -> node it came from */
+        final int[] cameFrom;
+        /** node index -> total cost */
+        final float[] costs;
+        /** node index -> ID of the search that last set it */
+        final int[] searches;
+        int search;
+
+        SearchContext(int size){
+            cameFrom = new int[size];
+            costs = new float[size];
+            searches = new int[size];
+        }
+
+        /** Starts a new search, invalidating all previous entries. */
+        void begin(int start){
+            search++;
+            frontier.clear();
+
+            cameFrom[start] = start;
+            costs[start] = 0;
+            searches[start] = search;
+            frontier.add(start, 0);
+        }
+    }
+
     static class PathRequest{
         final PathfindThread thread;
 
@@ -506,25 +815,55 @@ public class ControlPathfinder{
         int rayPathIndex = -1;
         IntSeq result = new IntSeq();
         volatile float raycastTimer;
-
-        PathfindQueue frontier = new PathfindQueue();
-        //node index -> node it came from
-        IntIntMap cameFrom = new IntIntMap();
-        //node index -> total cost
-        IntFloatMap costs = new IntFloatMap();
+        /** immutable copy of the last path that reached its goal, for other requests to share; null while there is none */
+        volatile int[] finished;
+        /** start and goal of the finished path; written before it is published */
+        volatile int finishedStart, finishedGoal;
+
+        /** search state borrowed from the thread while searching, null otherwise */
+        @Nullable SearchContext context;
+        /** whether the search needs to be (re)started once a context is available */
+        boolean needsStart;
+        /** whether this request is in the queue of requests waiting for a context */
+        boolean waiting;
 
         int start, goal;
+        /** cluster the unit was in when the request was made; key in clusterRequests */
+        int cluster;
+
+        /** clusters the search may enter; only used when useCorridor is true */
+        boolean[] corridor;
+        /** whether the coarse search has been done for the current search */
+        boolean corridorSearched;
+        /** whether the fine search is restricted to the corridor */
+        boolean useCorridor;
 
         long lastUpdateId;
         long lastTime;
         long forceRecalcTime;
 
-        volatile int lastId, curId;
+        volatile int lastId = -1, curId;
 
         public PathRequest(PathfindThread thread){
             this.thread = thread;
         }
 
+        /** Copies the finished path of another request with the same goal. Main thread only. */
+        void share(int[] path, int goal){
+            start = world.packArray(unit.tileX(), unit.tileY());
+            this.goal = goal;
+            result.addAll(path);
+            //the array is never modified, so this request can pass it on as well
+            finishedStart = start;
+            finishedGoal = goal;
+            finished = path;
+            lastDestination.set(destination);
+            lastTime = Time.millis();
+            lastId = curId;
+            foundEnd = true;
+            done = true;
+        }
+
         public void forceRecalculate(){
             //keep it at 3 times/sec
             if(Time.timeSinceMillis(forceRecalcTime) < 1000 / 3) return;
@@ -548,6 +887,45 @@ public class ControlPathfinder{
 
             if(done) return;
 
+            //a few searches run at a time per thread, and the others get a context in the order they were requested
+            if(context == null){
+                if(!waiting){
+                    waiting = true;
+                    thread.waiting.addLast(this);
+                }
+
+                if(thread.waiting.first() != this || (context = thread.borrowContext()) == null) return;
+
+                thread.waiting.removeFirst();
+                waiting = false;
+            }
+
+            if(needsStart){
+                needsStart = false;
+                context.begin(start);
+            }
+
+            if(!corridorSearched){
+                corridorSearched = true;
+
+                int total = cwidth * cheight;
+                if(corridor == null || corridor.length != total){
+                    corridor = new boolean[total];
+                }
+
+                useCorridor = thread.findCorridor(thread.graph(team, cost), cluster(start), cluster(goal), corridor);
+
+                //the goal is not reachable at all, skip the search
+                if(!useCorridor){
+                    context.frontier.clear();
+                }
+            }
+
+            PathfindQueue frontier = context.frontier;
+            int[] cameFrom = context.cameFrom, searches = context.searches;
+            float[] costs = context.costs;
+            int search = context.search;
+
             long ns = Time.nanos();
             int counter = 0;
 
@@ -567,11 +945,14 @@ public class ControlPathfinder{
 
                     if(newx >= wwidth || newy >= wheight || newx < 0 || newy < 0) continue;
 
+                    //stay inside the corridor of the coarse search
+                    if(useCorridor && !corridor[newx / clusterSize + newy / clusterSize * cwidth]) continue;
+
                     //in fallback mode, enemy walls are passable
                     if(tcost(team, cost, next) == impassable) continue;
 
                     float add = tileCost(team, cost, current, next);
-                    float currentCost = costs.get(current);
+                    float currentCost = costs[current];
 
                     if(add < 0) continue;
 
@@ -579,12 +960,13 @@ public class ControlPathfinder{
                     //essentially this means that any path with enemy walls will only count the walls once, preventing strange behavior like avoiding based on wall count
                     float newCost = currentCost >= wallImpassableCap && add >= wallImpassableCap ? currentCost + add - wallImpassableCap : currentCost + add;
 
-                    //a cost of 0 means "not set"
-                    if(!costs.containsKey(next) || newCost < costs.get(next)){
-                        costs.put(next, newCost);
+                    //an outdated search ID means "not set"
+                    if(searches[next] != search || newCost < costs[next]){
+                        searches[next] = search;
+                        costs[next] = newCost;
                         float priority = newCost + heuristic(next, goal);
                         frontier.add(next, priority);
-                        cameFrom.put(next, current);
+                        cameFrom[next] = current;
                     }
                 }
 
@@ -599,6 +981,13 @@ public class ControlPathfinder{
                 }
             }
 
+            //no path inside the corridor, as clusters are not always connected internally; search the whole map instead
+            if(!foundEnd && useCorridor){
+                useCorridor = false;
+                context.begin(start);
+                return;
+            }
+
             lastTime = Time.millis();
             raycastTimer = 9999f;
             result.clear();
@@ -610,18 +999,20 @@ public class ControlPathfinder{
                 int cur = goal;
                 while(cur != start){
                     result.add(cur);
-                    cur = cameFrom.get(cur);
+                    cur = cameFrom[cur];
                 }
 
                 result.reverse();
 
                 smoothPath();
+
+                finishedStart = start;
+                finishedGoal = goal;
+                finished = result.toArray();
             }
 
-            //don't keep this around in memory, better to dump entirely - using clear() keeps around massive arrays for paths
-            frontier = new PathfindQueue();
-            cameFrom = new IntIntMap();
-            costs = new IntFloatMap();
+            //let the next request search
+            thread.releaseContext(this);
 
             done = true;
         }
@@ -646,20 +1037,17 @@ public class ControlPathfinder{
 
         void clear(boolean resetCurrent){
             done = false;
-
-            frontier = new PathfindQueue(20);
-            cameFrom.clear();
-            costs.clear();
+            finished = null;
 
             start = world.packArray(unit.tileX(), unit.tileY());
             goal = world.packArray(World.toTile(destination.x), World.toTile(destination.y));
 
-            cameFrom.put(start, start);
-            costs.put(start, 0);
-
-            frontier.add(start, 0);
+            //the search begins once this request holds a context
+            needsStart = true;
 
             foundEnd = false;
+            corridorSearched = false;
+            useCorridor = false;
             lastDestination.set(destination);
 
             if(resetCurrent){
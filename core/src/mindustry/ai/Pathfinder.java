@@ -15,12 +15,17 @@ import mindustry.world.blocks.environment.*;
 import mindustry.world.blocks.storage.*;
 import mindustry.world.meta.*;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 import static mindustry.Vars.*;
 
 public class Pathfinder implements Runnable{
     private static final long maxUpdate = Time.millisToNanos(8);
     private static final int updateFPS = 60;
     private static final int updateInterval = 1000 / updateFPS;
+    /** If more tile positions than this change between updates, a flow field is recalculated instead of repaired. */
+    private static final int maxRepairPositions = 4096;
 
     /** cached world size */
     static int wwidth, wheight;
@@ -75,6 +80,8 @@ public class Pathfinder implements Runnable{
     TaskQueue queue = new TaskQueue();
     /** Current pathfinding thread */
     @Nullable Thread thread;
+    /** Worker pool that flow fields are updated on, one task per field. Lives as long as the pathfinding thread. */
+    @Nullable ExecutorService executor;
     IntSeq tmpArray = new IntSeq();
 
     public Pathfinder(){
@@ -201,6 +208,15 @@ public class Pathfinder implements Runnable{
         stop();
         if(net.client()) return;
 
+        //workers have the same low priority as the pathfinding thread, so they never compete with the main thread
+        executor = new ForkJoinPool(Math.max(Runtime.getRuntime().availableProcessors() - 1, 1), pool -> {
+            var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("Pathfinder-Worker-" + worker.getPoolIndex());
+            worker.setPriority(Thread.MIN_PRIORITY);
+            worker.setDaemon(true);
+            return worker;
+        }, null, true);
+
         thread = new Thread(this, "Pathfinder");
         thread.setPriority(Thread.MIN_PRIORITY);
         thread.setDaemon(true);
@@ -213,11 +229,16 @@ public class Pathfinder implements Runnable{
             thread.interrupt();
             thread = null;
         }
+        if(executor != null){
+            //field updates that are already running finish on their own
+            executor.shutdown();
+            executor = null;
+        }
         queue.clear();
     }
 
     /** Update a tile in the internal pathfinding grid.
-     * Causes a complete pathfinding recalculation. Main thread only. */
+     * Causes the flow fields to be repaired around the tile. Main thread only. */
     public void updateTile(Tile tile){
         if(net.client()) return;
 
@@ -228,19 +249,45 @@ public class Pathfinder implements Runnable{
             }
         });
 
+        //fields that gained or lost a target, such as a built or destroyed core, can't be repaired and need a full recalculation
+        Seq<Flowfield> retargeted = new Seq<>();
+
         //can't iterate through array so use the map, which should not lead to problems
         for(Flowfield path : mainList){
             if(path != null){
                 synchronized(path.targets){
-                    path.updateTargetPositions();
+                    if(path.updateTargetPositions()){
+                        retargeted.add(path);
+                    }
                 }
             }
         }
 
-        //mark every flow field as dirty, so it updates when it's done
+        IntSeq changed = new IntSeq();
+        getChangedPositions(tile, changed);
+
+        //queue a repair of every flow field; if too much has changed, recalculate it once it's done
         queue.post(() -> {
             for(Flowfield data : threadList){
-                data.dirty = true;
+                if(retargeted.contains(data, true) || data.repairs.size + changed.size > maxRepairPositions){
+                    data.dirty = true;
+                    data.repairs.clear();
+                }else if(!data.dirty){
+                    data.repairs.addAll(changed);
+                }
+            }
+        });
+    }
+
+    /** Adds the positions of all tiles whose cost may have changed after a tile update. This includes neighbors, as their near-solid state may change. */
+    private void getChangedPositions(Tile tile, IntSeq out){
+        tile.getLinkedTiles(t -> {
+            out.add(t.array());
+            for(int i = 0; i < 4; i++){
+                Tile other = t.nearby(i);
+                if(other != null){
+                    out.add(other.array());
+                }
             }
         });
     }
@@ -248,6 +295,10 @@ public class Pathfinder implements Runnable{
     /** Thread implementation. */
     @Override
     public void run(){
+        //the pool of this thread; a restart replaces the field with a new one
+        ExecutorService executor = this.executor;
+        Seq<Future<?>> futures = new Seq<>();
+
         while(true){
             if(net.client()) return;
             try{
@@ -255,17 +306,24 @@ public class Pathfinder implements Runnable{
                 if(state.isPlaying()){
                     queue.run();
 
-                    //each update time (not total!) no longer than maxUpdate
+                    //each field is updated in parallel; each update time (not total!) no longer than maxUpdate
+                    futures.clear();
                     for(Flowfield data : threadList){
+                        futures.add(executor.submit(() -> updateField(data)));
+                    }
 
-                        //if it's dirty and there is nothing to update, begin updating once more
-                        if(data.dirty && data.frontier.size == 0){
-                            updateTargets(data);
-                            data.dirty = false;
+                    //wait for all fields, as queued tasks may modify them
+                    for(var future : futures){
+                        try{
+                            future.get();
+                        }catch(ExecutionException e){
+                            e.getCause().printStackTrace();
+                        }catch(InterruptedException e){
+                            //stop looping when interrupted externally
+                            return;
                         }
-
-                        updateFrontier(data, maxUpdate);
                     }
+                    futures.clear();
                 }
 
                 try{
@@ -274,12 +332,61 @@ public class Pathfinder implements Runnable{
                     //stop looping when interrupted externally
                     return;
                 }
+            }catch(RejectedExecutionException e){
+                //the pool was shut down by stop()
+                return;
             }catch(Throwable e){
                 e.printStackTrace();
             }
         }
     }
 
+    /** Updates a single flow field. Called on a worker thread; only one worker accesses a field at a time. */
+    private void updateField(Flowfield data){
+        //if it's dirty and there is nothing to update, begin updating once more
+        if(data.dirty && data.frontier.size == 0){
+            //start over, so that cells that can no longer be reached don't keep weights towards removed targets
+            Arrays.fill(data.weights, impassable);
+            updateTargets(data);
+            data.dirty = false;
+            data.repairs.clear();
+        }else if(data.repairs.size > 0 && !data.searching){
+            //repairs wait for full searches to finish, as the weights are not consistent before that
+            repairField(data);
+        }
+
+        updateFrontier(data, maxUpdate);
+    }
+
+    /** Fully recalculates a flow field on the calling thread. The field must not be registered with the pathfinding thread. Used for testing. */
+    public void recalculate(Flowfield path){
+        if(!path.initialized){
+            path.updateTargetPositions();
+            path.setup(tiles.length);
+
+            for(int i = 0; i < tiles.length; i++){
+                path.weights[i] = impassable;
+            }
+        }
+
+        updateTargets(path);
+        updateFrontier(path, -1);
+    }
+
+    /** Repairs a flow field on the calling thread after a tile update. The field must not be registered with the pathfinding thread. Used for testing. */
+    public void repair(Flowfield path, Tile tile){
+        //like updateTile, a changed set of targets needs a full recalculation
+        if(path.updateTargetPositions()){
+            Arrays.fill(path.weights, impassable);
+            path.repairs.clear();
+            updateTargets(path);
+        }else{
+            getChangedPositions(tile, path.repairs);
+            repairField(path);
+        }
+        updateFrontier(path, -1);
+    }
+
     public Flowfield getField(Team team, int costType, int fieldType){
         if(cache[team.id][costType][fieldType] == null){
             Flowfield field = fieldTypes.get(fieldType).get();
@@ -353,6 +460,7 @@ public class Pathfinder implements Runnable{
 
         //increment search, but do not clear the frontier
         path.search++;
+        path.searching = true;
 
         synchronized(path.targets){
             //add targets
@@ -380,6 +488,7 @@ public class Pathfinder implements Runnable{
     private void registerPath(Flowfield path){
         path.lastUpdateTime = Time.millis();
         path.setup(tiles.length);
+        path.searching = true;
 
         threadList.add(path);
 
@@ -395,11 +504,86 @@ public class Pathfinder implements Runnable{
         for(int i = 0; i < path.targets.size; i++){
             int pos = path.targets.get(i);
             path.weights[pos] = 0;
+            path.searches[pos] = path.search;
             path.frontier.addFirst(pos);
         }
     }
 
-    /** Update the frontier for a path. Pathfinding thread only. */
+    /**
+     * Repairs the weights of a completed search around the positions queued in {@link Flowfield#repairs}.
+     * Every cell whose weight was derived from a changed cell is invalidated, and the search is restarted from the cells bordering them.
+     * Cells that do not depend on a changed cell keep their weights, which makes small edits much cheaper than a full recalculation.
+     */
+    private void repairField(Flowfield path){
+        int[] weights = path.weights, searches = path.searches;
+        int search = path.search;
+        IntSeq changed = path.repairs, affected = path.affected;
+
+        affected.clear();
+
+        //changed cells need to be recalculated; targets have no cost, so they stay as they are
+        for(int i = 0; i < changed.size; i++){
+            int pos = changed.items[i];
+            if(searches[pos] == search && weights[pos] > 0){
+                //an outdated search ID marks the cell as affected
+                searches[pos] = search - 1;
+                affected.add(pos);
+            }
+        }
+
+        //flood outwards to every cell that got its weight from an affected cell
+        for(int i = 0; i < affected.size; i++){
+            int pos = affected.items[i], x = pos % wwidth, y = pos / wwidth;
+
+            for(Point2 point : Geometry.d4){
+                int dx = x + point.x, dy = y + point.y;
+
+                if(dx < 0 || dy < 0 || dx >= wwidth || dy >= wheight) continue;
+
+                int other = pos + point.x + point.y * wwidth;
+
+                if(searches[other] == search && weights[other] > 0 && weights[other] == weights[pos] + path.cost.getCost(path.team.id, tiles[other])){
+                    searches[other] = search - 1;
+                    affected.add(other);
+                }
+            }
+        }
+
+        for(int i = 0; i < affected.size; i++){
+            weights[affected.items[i]] = impassable;
+        }
+
+        //continue the search from all valid cells around the affected and changed ones
+        for(int i = 0; i < affected.size + changed.size; i++){
+            int pos = i < affected.size ? affected.items[i] : changed.items[i - affected.size], x = pos % wwidth, y = pos / wwidth;
+
+            if(searches[pos] == search && weights[pos] != impassable){
+                path.frontier.addFirst(pos);
+            }
+
+            for(Point2 point : Geometry.d4){
+                int dx = x + point.x, dy = y + point.y;
+
+                if(dx < 0 || dy < 0 || dx >= wwidth || dy >= wheight) continue;
+
+                int other = pos + point.x + point.y * wwidth;
+
+                if(searches[other] == search && weights[other] != impassable){
+                    path.frontier.addFirst(other);
+                }
+            }
+        }
+
+        //nothing can reach the affected cells anymore, so the repaired weights are already complete
+        if(path.frontier.size == 0 && affected.size > 0){
+            System.arraycopy(weights, 0, path.completeWeights, 0, weights.length);
+            path.hasComplete = true;
+        }
+
+        changed.clear();
+    }
+
+    /** Update the frontier for a path. Pathfinding thread or its workers only. */
     private void updateFrontier(Flowfield path, long nsToRun){
         boolean hadAny = path.frontier.size > 0;
         long start = Time.nanos();
@@ -430,7 +614,7 @@ public class Pathfinder implements Runnable{
                     if((path.weights[newPos] > cost + otherCost || path.searches[newPos] < path.search) && otherCost != impassable){
                         path.frontier.addFirst(newPos);
                         path.weights[newPos] = cost + otherCost;
-                        path.searches[newPos] = (short)path.search;
+                        path.searches[newPos] = path.search;
                     }
                 }
             }
@@ -448,6 +632,7 @@ public class Pathfinder implements Runnable{
         if(hadAny && path.frontier.size == 0){
             System.arraycopy(path.weights, 0, path.completeWeights, 0, path.weights.length);
             path.hasComplete = true;
+            path.searching = false;
         }
     }
 
@@ -506,8 +691,16 @@ public class Pathfinder implements Runnable{
 
         /** search frontier, these are Pos objects */
         IntQueue frontier = new IntQueue();
+        /** positions with changed costs that have not been repaired yet */
+        final IntSeq repairs = new IntSeq();
+        /** cells invalidated by the last repair */
+        final IntSeq affected = new IntSeq();
+        /** whether a full search is in progress; repairs are deferred until it is done */
+        boolean searching;
         /** all target positions; these positions have a cost of 0, and must be synchronized on! */
         final IntSeq targets = new IntSeq();
+        /** targets before the last update of {@link #targets}; only used to detect changes */
+        private final IntSeq lastTargets = new IntSeq();
         /** current search ID */
         int search = 1;
         /** last updated time */
@@ -527,9 +720,18 @@ public class Pathfinder implements Runnable{
             return hasComplete && completeWeights != null;
         }
 
-        public void updateTargetPositions(){
+        /** @return whether the set of target positions changed. */
+        public boolean updateTargetPositions(){
+            lastTargets.clear();
+            lastTargets.addAll(targets);
             targets.clear();
             getPositions(targets);
+
+            if(lastTargets.size != targets.size) return true;
+            for(int i = 0; i < targets.size; i++){
+                if(!lastTargets.contains(targets.items[i])) return true;
+            }
+            return false;
         }
 
         protected boolean passable(int pos){
@@ -0,0 +1,190 @@
+package mindustry.arcModule;
+
+import arc.math.geom.Point2;
+import arc.struct.IntSeq;
+import arc.struct.ObjectIntMap;
+import arc.struct.ObjectMap;
+import arc.struct.Seq;
+import arc.util.Strings;
+import arc.util.io.Reads;
+import mindustry.gen.*;
+import mindustry.net.Net;
+import mindustry.net.Packet;
+import mindustry.world.Block;
+
+import java.io.*;
+import java.util.Date;
+import java.util.zip.InflaterInputStream;
+
+import static mindustry.Vars.*;
+
+/**
+ * Streams a replay through {@link Net#newPacket} and {@link Packet#read} as fast as it can be read, without a client,
+ * a world or a GPU, and summarizes it. Runs on any thread; packet contents are decoded from the recorded bytes,
+ * never through the shared deserialization buffers or the loaded world.
+ */
+public class ReplayAnalyzer {
+    /** Width of a bandwidth bucket, in nanoseconds. */
+    public static final long bucket = 1_000_000_000L;
+
+    public static Summary analyze(File input) throws IOException {
+        Summary summary = new Summary();
+        if (ReplayFile.isSeekable(input)) {
+            try (ReplayFile.Reader file = new ReplayFile.Reader(input)) {
+                summary.version = ReplayFile.version;
+                summary.date = new Date(file.date);
+                summary.ip = file.ip;
+                summary.name = file.name;
+                for (int i = 0; i < file.blocks.size; i++) {
+                    if (file.blocks.get(i).type == ReplayFile.blockKeyframe) {
+                        summary.keyframes++;
+                        continue;
+                    }
+                    read(summary, file.packets(i));
+                }
+            }
+        } else {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(input)), 32768))) {
+                summary.version = in.readInt();
+                summary.date = new Date(in.readLong());
+                summary.ip = in.readUTF();
+                summary.name = in.readUTF();
+                read(summary, in);
+            }
+        }
+        return summary;
+    }
+
+    private static void read(Summary summary, DataInputStream in) throws IOException {
+        byte[] data = new byte[Short.MAX_VALUE * 2 + 1];
+        while (true) {
+            long time;
+            byte id;
+            int length;
+            try {
+                time = in.readLong();
+                id = in.readByte();
+                length = in.readUnsignedShort();
+                in.readFully(data, 0, length);
+            } catch (EOFException e) {
+                //the end of a block, or a recording that was cut off
+                return;
+            }
+
+            Packet packet = Net.newPacket(id);
+            String type = packet.getClass().getSimpleName();
+            summary.packets++;
+            summary.bytes += length;
+            summary.length = Math.max(summary.length, time);
+            summary.types.increment(type);
+            summary.typeBytes.increment(type, length);
+
+            int second = (int) (time / bucket);
+            while (summary.bandwidth.size <= second) summary.bandwidth.add(0);
+            summary.bandwidth.incr(second, length);
+
+            try {
+                packet.read(new Reads(new DataInputStream(new ByteArrayInputStream(data, 0, length))), length);
+                event(summary, packet, time, new DataInputStream(new ByteArrayInputStream(data, 0, length)));
+            } catch (Exception e) {
+                summary.malformed++;
+            }
+        }
+    }
+
+    private static void event(Summary summary, Packet packet, long time, DataInputStream in) throws IOException {
+        if (packet instanceof SendMessageCallPacket || packet instanceof SendMessageCallPacket2) {
+            String message = readString(in), unformatted = in.available() > 0 ? readString(in) : null;
+            if (message == null) return;
+            String sender = sender(message, unformatted);
+            summary.player(sender).chat.add(new Event(time, unformatted != null ? unformatted : Strings.stripColors(message)));
+        } else if (packet instanceof ConstructFinishCallPacket || packet instanceof DeconstructFinishCallPacket) {
+            int pos = in.readInt();
+            Block block = content.block(in.readShort());
+            byte unitType = in.readByte();
+            int unit = in.readInt();
+            //builds are only attributed to the unit that made them; player names are not part of these packets
+            String builder = unitType == 2 ? "unit#" + unit : unitType == 1 ? "building" : "none";
+            boolean construct = packet instanceof ConstructFinishCallPacket;
+            summary.player(builder).builds.add(new Event(time, (construct ? "+" : "-") + (block == null ? "?" : block.name) + " " + Point2.x(pos) + "," + Point2.y(pos)));
+        }
+    }
+
+    /** Reverses the default chat formatter, {@code [coral][[name[coral]]:[white] message}. */
+    private static String sender(String message, String unformatted) {
+        if (unformatted == null || !message.endsWith(unformatted)) return "server";
+        String prefix = message.substring(0, message.length() - unformatted.length());
+        int start = prefix.indexOf("[["), end = prefix.lastIndexOf("[coral]]:");
+        if (start == -1 || end <= start) return "server";
+        return Strings.stripColors(prefix.substring(start + 2, end)).trim();
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readByte() != 0 ? in.readUTF() : null;
+    }
+
+    public static class Summary {
+        public int version;
+        public Date date;
+        public String ip, name;
+        /** Recording length in nanoseconds. */
+        public long length, packets, bytes;
+        public int keyframes, malformed;
+        public final ObjectIntMap<String> types = new ObjectIntMap<>(), typeBytes = new ObjectIntMap<>();
+        /** Packet bytes received in each {@link #bucket}. */
+        public final IntSeq bandwidth = new IntSeq();
+        public final ObjectMap<String, Activity> players = new ObjectMap<>();
+
+        Activity player(String name) {
+            return players.get(name, Activity::new);
+        }
+
+        public int peakBandwidth() {
+            int peak = 0;
+            for (int i = 0; i < bandwidth.size; i++) peak = Math.max(peak, bandwidth.get(i));
+            return peak;
+        }
+
+        /** @param events whether to list every chat message and build, not just the totals */
+        public Seq<String> report(boolean events) {
+            Seq<String> out = new Seq<>();
+            int secs = (int) (length / 1000000000);
+            out.add(Strings.format("Replay v@ created @ on @ by @", version, date, ip, name));
+            out.add(Strings.format("Length: @:@:@, @ packets, @ KB, @ keyframes, peak @ KB/s", secs / 3600, secs / 60 % 60, secs % 60, packets, bytes / 1024, keyframes, peakBandwidth() / 1024));
+            out.add("Packets:");
+            Seq<String> names = types.keys().toArray().sort(t -> -typeBytes.get(t));
+            for (String type : names) {
+                out.add(Strings.format("  @: @ (@ KB)", type, types.get(type), typeBytes.get(type) / 1024));
+            }
+            out.add("Players:");
+            for (var entry : players) {
+                out.add(Strings.format("  @: @ messages, @ builds", entry.key, entry.value.chat.size, entry.value.builds.size));
+                if (!events) continue;
+                for (Event event : entry.value.chat) out.add("    " + event.timestamp() + " " + event.text);
+                for (Event event : entry.value.builds) out.add("    " + event.timestamp() + " " + event.text);
+            }
+            if (malformed > 0) out.add(Strings.format("@ packets could not be decoded.", malformed));
+            return out;
+        }
+    }
+
+    public static class Activity {
+        public final Seq<Event> chat = new Seq<>(), builds = new Seq<>();
+    }
+
+    public static class Event {
+        /** Recording time in nanoseconds. */
+        public final long time;
+        public final String text;
+
+        public Event(long time, String text) {
+            this.time = time;
+            this.text = text;
+        }
+
+        public String timestamp() {
+            int secs = (int) (time / 1000000000);
+            return Strings.format("@:@:@", secs / 3600, secs / 60 % 60, secs % 60);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import arc.scene.event.Touchable;
 import arc.scene.ui.layout.Table;
 import arc.scene.ui.layout.WidgetGroup;
 import arc.struct.IntMap;
+import arc.struct.ObjectSet;
 import arc.util.Log;
 import arc.util.Time;
 import arc.util.io.ByteBufferOutput;
@@ -14,8 +15,10 @@ import arc.util.io.Reads;
 import arc.util.io.Writes;
 import mindustry.Vars;
 import mindustry.core.GameState;
+import mindustry.core.NetClient;
 import mindustry.game.EventType;
 import mindustry.net.Net;
+import mindustry.net.NetworkIO;
 import mindustry.net.Packet;
 import mindustry.net.Packets;
 import mindustry.ui.Styles;
@@ -25,17 +28,31 @@ import java.io.*;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.util.Date;
-import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
 
 import static mindustry.Vars.*;
 import static mindustry.arcModule.TimeControl.*;
 
 public class ReplayController {
-    public static final int version = 2;
-    private Writes writes;
+    public static final int version = ReplayFile.version;
+    /** Default recording time between world keyframes, in nanoseconds; overridden by the "replaykeyframe" setting, in seconds. */
+    public static long keyframeInterval = 30_000_000_000L;
+    /** Keyframes are spaced so that writing them takes at most this fraction of recording time, keeping large maps from hitching often. */
+    public static float keyframeBudget = 0.002f;
+    /** Longest single wait of the playback thread, so speed changes are picked up quickly. */
+    private static final long maxWaitNanos = 100_000_000L;
+    private ReplayFile.Writer writer;
     private Reads reads;
-    private long startTime, allTime;
+    //playback state; only changed while holding the lock
+    private ReplayFile.Reader replay;
+    private DataInputStream blockInput;
+    private int block;
+    private Packet pending;
+    private volatile long seekTarget = -1;
+    private final Object lock = new Object();
+    private long startTime, allTime, lastKeyframe, nextKeyframe;
+    //reused between keyframes, so that each one starts with the size of the last
+    private ByteArrayOutputStream keyframeBuffer;
     private long lastTime, nextTime;
     private long length, skip = 0;
     private Thread thread;
@@ -53,23 +70,29 @@ public class ReplayController {
         dir.mkdirs();
         thread = new Thread(() -> {
             while (true) {
-                if (reads == null) {
+                synchronized (lock) {
                     try {
-                        synchronized (thread) {
-                            thread.wait();
+                        if (reads == null) {
+                            lock.wait();
+                            continue;
+                        }
+                        long seek = seekTarget;
+                        if (seek >= 0) {
+                            seekTarget = -1;
+                            seekTo(seek);
+                        }
+                        long wait = readNextPacket();
+                        if (wait > 0) {
+                            lock.wait(wait / 1000000, (int) (wait % 1000000));
                         }
                     } catch (InterruptedException ignored) {
+                    } catch (Exception e) {
+                        closeReads();
+                        net.disconnect();
+                        ARCVars.replaying = false;
+                        Core.app.post(() -> logic.reset());
                     }
                 }
-                try {
-                    readNextPacket();
-                } catch (Exception e) {
-                    closeReads();
-                    reads = null;
-                    net.disconnect();
-                    ARCVars.replaying = false;
-                    Core.app.post(() -> logic.reset());
-                }
             }
         }, "Replay Controller");
         thread.setPriority(3);
@@ -102,7 +125,8 @@ public class ReplayController {
             controller.table(t -> {
                 t.setBackground(Styles.black3);
                 t.table(tt -> {
-                    //tt.button("快进10s", () -> skip = timeEscaped() + 10000000000L);//TODO bug
+                    tt.button("后退10s", () -> seek(timeEscaped() - 10000000000L)).disabled(b -> replay == null);
+                    tt.button("快进10s", () -> seek(timeEscaped() + 10000000000L));
                     tt.button("倍率x2", () -> changeGameSpeed(2f));
                     tt.button("倍率/2", () -> changeGameSpeed(0.5f));
                     tt.button("暂停回放", () -> setGameSpeed(0f));
@@ -120,19 +144,24 @@ public class ReplayController {
         });
         Events.run(EventType.Trigger.update, () -> {
             if (state.getState() == GameState.State.menu && !netClient.isConnecting()) {
-                closeReads();
-                reads = null;
-                ARCVars.replaying = false;
                 stopPlay();
             }
+            if (recording && state.isGame() && !netClient.isConnecting() && Time.timeSinceNanos(lastKeyframe) >= nextKeyframe) {
+                writeKeyframe();
+            }
         });
     }
 
     private void closeReads() {
         try {
-            reads.close();
+            if (replay != null) replay.close();
+            else if (reads != null) reads.close();
         } catch (Exception ignored) {
         }
+        replay = null;
+        reads = null;
+        blockInput = null;
+        pending = null;
     }
 
     private static class ReplayData {
@@ -151,27 +180,45 @@ public class ReplayController {
     public void createReplay(String ip) {
         if (!recordEnabled || ARCVars.replaying) return;
         stop();
+        boolean anonymous = Core.settings.getBool("anonymous", false);
         try {
-            writes = new Writes(new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(dir.child(new Date().getTime() + ".mrep").file())))));
+            writer = new ReplayFile.Writer(dir.child(new Date().getTime() + ".mrep").file(), new Date().getTime(), anonymous ? "anonymous" : ip, anonymous ? "anonymous" : Vars.player.name.trim());
         } catch (Exception e) {
             Log.err("创建回放出错!", e);
             return;
         }
-        boolean anonymous = Core.settings.getBool("anonymous", false);
-        writes.i(version);
-        writes.l(new Date().getTime());
-        writes.str(anonymous ? "anonymous" : ip);
-        writes.str(anonymous ? "anonymous" : Vars.player.name.trim());
         recording = true;
-        startTime = Time.nanos();
+        startTime = lastKeyframe = Time.nanos();
+        nextKeyframe = Core.settings.getInt("replaykeyframe", (int) (keyframeInterval / 1_000_000_000L)) * 1_000_000_000L;
     }
 
     public void stop() {
         recording = false;
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    /** Stores the current world, exactly as a joining player would receive it, so playback can seek to this point. */
+    private void writeKeyframe() {
+        lastKeyframe = Time.nanos();
+        if (keyframeBuffer == null) keyframeBuffer = new ByteArrayOutputStream(256 * 1024);
+        keyframeBuffer.reset();
+        //writing the header fills in researched content when hosting a campaign; the recording must not change the rules
+        ObjectSet<String> researched = new ObjectSet<>(state.rules.researched);
         try {
-            writes.close();
-        } catch (Exception ignored) {
+            NetworkIO.writeWorld(player, keyframeBuffer);
+            writer.keyframe(lastKeyframe - startTime, keyframeBuffer.toByteArray());
+        } catch (Exception e) {
+            Log.err("回放关键帧写入出错!", e);
+        } finally {
+            state.rules.researched.clear();
+            state.rules.researched.addAll(researched);
         }
+        //serialization has to see a consistent world, so it stays on this thread; space keyframes out by their cost instead
+        long interval = Core.settings.getInt("replaykeyframe", (int) (keyframeInterval / 1_000_000_000L)) * 1_000_000_000L;
+        nextKeyframe = Math.max(interval, (long) (Time.timeSinceNanos(lastKeyframe) / keyframeBudget));
     }
 
     public void writePacket(Packet p) {
@@ -179,15 +226,11 @@ public class ReplayController {
         try {
             byte id = Net.getPacketId(p);
             try {
-                writes.l(Time.nanos() - startTime);
-                writes.b(id);
                 tmpBuf.position(0);
                 writing = true;
                 p.write(tmpWr);
                 writing = false;
-                int l = tmpBuf.position();
-                writes.s(l);
-                writes.b(tmpBuf.array(), 0, l);
+                writer.packet(Time.nanos() - startTime, id, tmpBuf.array(), tmpBuf.position());
             } catch (Exception e) {
                 net.disconnect();
                 Core.app.post(() -> ui.showException("录制出错!", e));
@@ -196,25 +239,98 @@ public class ReplayController {
         }
     }
 
-    synchronized private long timeEscaped() {
-        long escaped = (long) ((Time.nanos() - lastTime) * gameSpeed);
-        allTime += escaped;
-        lastTime = Time.nanos();
-        return allTime;
+    private long timeEscaped() {
+        synchronized (lock) {
+            long escaped = (long) ((Time.nanos() - lastTime) * gameSpeed);
+            allTime += escaped;
+            lastTime = Time.nanos();
+            return allTime;
+        }
+    }
+
+    private void setTime(long time) {
+        synchronized (lock) {
+            allTime = time;
+            lastTime = Time.nanos();
+        }
     }
 
-    private void readNextPacket() {
+    /** Requests playback to jump to a recording time. Older replays can only be fast-forwarded. */
+    public void seek(long time) {
+        synchronized (lock) {
+            seekTarget = Math.max(time, 0);
+            lock.notify();
+        }
+    }
+
+    private void seekTo(long target) throws IOException {
+        long current = timeEscaped();
+        if (replay == null) {
+            if (target > current) skip = target;
+            return;
+        }
+
+        int key = replay.keyframeBefore(target);
+        //nothing to gain from a keyframe we have already played past
+        if (target >= current && (key == -1 || replay.blocks.get(key).time <= current)) {
+            skip = target;
+            return;
+        }
+
+        pending = null;
+        blockInput = null;
+        if (key == -1) {
+            //before the first keyframe: start over from the world data sent on join
+            block = -1;
+            setTime(0);
+            Core.app.post(NetClient::worldDataBegin);
+        } else {
+            Packets.WorldStream world = new Packets.WorldStream();
+            world.stream = new ByteArrayInputStream(replay.read(key));
+            block = key;
+            setTime(replay.blocks.get(key).time);
+            Core.app.post(() -> net.handleClientReceived(world));
+        }
+        skip = target;
+    }
+
+    /** @return nanoseconds to wait before the next packet is due */
+    private long readNextPacket() throws IOException {
+        if (pending == null) {
+            pending = readPacket();
+        }
         long escaped = timeEscaped();
+        if (skip != 0 && nextTime >= skip) {
+            setTime(skip);
+            escaped = skip;
+            skip = 0;
+        }
         if (escaped < nextTime && skip == 0) {
-            Thread.yield();
-            return;
+            if (gameSpeed <= 0f) return maxWaitNanos;
+            return Math.min((long) ((nextTime - escaped) / gameSpeed), maxWaitNanos);
+        }
+        Packet p = pending;
+        pending = null;
+        Core.app.post(() -> net.handleClientReceived(p));
+        return 0;
+    }
+
+    private Packet readPacket() throws IOException {
+        if (replay != null) {
+            while (blockInput == null || blockInput.available() == 0) {
+                do {
+                    block++;
+                } while (block < replay.blocks.size && replay.blocks.get(block).type != ReplayFile.blockPackets);
+                if (block >= replay.blocks.size) throw new EOFException();
+                blockInput = replay.packets(block);
+                reads = new Reads(blockInput);
+            }
         }
         nextTime = reads.l();
         Packet p = Net.newPacket(reads.b());
         int l = reads.us();
         p.read(reads, l);
-        Core.app.post(() -> net.handleClientReceived(p));
-        if (skip != 0 && escaped > skip) skip = 0;
+        return p;
     }
 
     public void shouldRecord(boolean should) {
@@ -226,7 +342,6 @@ public class ReplayController {
     }
 
     public Reads createReads(File input) {
-        closeReads();
         try {
             return new Reads(new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(input)), 32768)));
         } catch (Exception e) {
@@ -237,31 +352,53 @@ public class ReplayController {
 
     public void startPlay(File input) {
         gameSpeed = 1f;
-        Reads r = createReads(input);
-        if (r == null) return;
-        int version = r.i();
-        Date time = new Date(r.l());
-        String ip = r.str();
-        String name = r.str();
-        Log.info("version: @, time: @, ip: @, name: @", version, time, ip, name);
-        now = new ReplayData(version, time, ip, name);
-        while (true) {
+        map.clear();
+        length = 0;
+        ReplayFile.Reader file = null;
+        Reads r;
+        String ip;
+        if (ReplayFile.isSeekable(input)) {
             try {
-                long l = r.l();
-                byte id = r.b();
-                r.skip(r.us());
-                map.put(id, map.get(id, 0) + 1);
-                length = l;
+                file = new ReplayFile.Reader(input);
+                now = new ReplayData(ReplayFile.version, new Date(file.date), file.ip, file.name);
+                for (int i = 0; i < file.blocks.size; i++) {
+                    if (file.blocks.get(i).type != ReplayFile.blockPackets) continue;
+                    countPackets(new Reads(file.packets(i)));
+                }
             } catch (Exception e) {
-                break;
+                if (file != null) {
+                    try {
+                        file.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+                ui.showException("读取回放失败!", e);
+                return;
             }
+            //placeholder until the first block is opened
+            r = new Reads(new DataInputStream(new ByteArrayInputStream(new byte[0])));
+        } else {
+            r = createReads(input);
+            if (r == null) return;
+            now = new ReplayData(r.i(), new Date(r.l()), r.str(), r.str());
+            countPackets(r);
+            r.close();
+            r = createReads(input);
+            if (r == null) return;
+            r.skip(12);
+            r.str();
+            r.str();
+        }
+        ip = now.ip;
+        Log.info("version: @, time: @, ip: @, name: @", now.version, now.time, ip, now.name);
+        synchronized (lock) {
+            closeReads();
+            ARCVars.replaying = true;
+            replay = file;
+            block = -1;
+            reads = r;
+            seekTarget = -1;
         }
-        r = createReads(input);
-        r.skip(12);
-        r.str();
-        r.str();
-        ARCVars.replaying = true;
-        reads = r;
         logic.reset();
         net.reset();
         try {
@@ -278,17 +415,34 @@ public class ReplayController {
         ui.loadfrag.setButton(() -> {
             ui.loadfrag.hide();
             netClient.disconnectQuietly();
-            reads = null;
+            stopPlay();
         });
-        nextTime = allTime = skip = 0;
-        lastTime = Time.nanos();
-        synchronized (thread) {
-            thread.notify();
+        synchronized (lock) {
+            nextTime = skip = 0;
+            setTime(0);
+            lock.notify();
+        }
+    }
+
+    private void countPackets(Reads r) {
+        while (true) {
+            try {
+                long l = r.l();
+                byte id = r.b();
+                r.skip(r.us());
+                map.put(id, map.get(id, 0) + 1);
+                length = l;
+            } catch (Exception e) {
+                break;
+            }
         }
     }
 
     public void stopPlay() {
-        reads = null;
+        synchronized (lock) {
+            closeReads();
+            lock.notify();
+        }
         ARCVars.replaying = false;
     }
 
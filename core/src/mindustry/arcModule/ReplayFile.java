@@ -0,0 +1,261 @@
+package mindustry.arcModule;
+
+import arc.struct.Seq;
+import arc.util.Log;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Seekable replay container, version 3.
+ * <p>
+ * Layout: magic, version, creation date, ip, player name, then a sequence of blocks, each made of a type byte,
+ * the recording time of its start, a length and the data. Packet blocks hold raw deflated packet entries
+ * (time, packet id, length, packet data), exactly like version 2 streams, cut into short independent pieces.
+ * Keyframe blocks hold a complete zlib world stream, as received on join.
+ * A trailing index of every block's type, time and file offset comes last, followed by its own offset and a magic.
+ * If the index is missing because recording was interrupted, it is rebuilt by scanning the block headers.
+ */
+public class ReplayFile {
+    public static final int version = 3;
+    public static final byte[] magic = {'M', 'R', 'E', 'P'}, indexMagic = {'M', 'I', 'D', 'X'};
+    public static final byte blockPackets = 0, blockKeyframe = 1;
+    /** Packet blocks are cut after this much recorded time, in nanoseconds, or this many bytes. */
+    public static final long blockDuration = 1_000_000_000L;
+    public static final int blockBytes = 64 * 1024;
+
+    public static boolean isSeekable(File file) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            byte[] bytes = new byte[magic.length];
+            in.readFully(bytes);
+            return Arrays.equals(bytes, magic);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static class Block {
+        public final byte type;
+        public final long time, offset;
+
+        public Block(byte type, long time, long offset) {
+            this.type = type;
+            this.time = time;
+            this.offset = offset;
+        }
+    }
+
+    /** Buffers packets on the calling thread; compression and file output happen in order on a background thread. */
+    public static class Writer {
+        private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Replay Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final DataOutputStream output;
+        private final ByteArrayOutputStream block = new ByteArrayOutputStream(blockBytes + 1024);
+        private final DataOutputStream blockData = new DataOutputStream(block);
+        private long blockStart = -1;
+        //only accessed on the writer thread
+        private final Seq<Block> index = new Seq<>();
+        private long offset;
+
+        public Writer(File file, long date, String ip, String name) throws IOException {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 32768));
+            output.write(magic);
+            output.writeInt(version);
+            output.writeLong(date);
+            output.writeUTF(ip);
+            output.writeUTF(name);
+            offset = output.size();
+        }
+
+        public void packet(long time, byte id, byte[] data, int length) throws IOException {
+            if (blockStart < 0) blockStart = time;
+            blockData.writeLong(time);
+            blockData.writeByte(id);
+            blockData.writeShort(length);
+            blockData.write(data, 0, length);
+
+            if (time - blockStart >= blockDuration || block.size() >= blockBytes) {
+                flush();
+            }
+        }
+
+        /** @param world uncompressed world data, as written by {@link mindustry.net.NetworkIO#writeWorld} */
+        public void keyframe(long time, byte[] world) {
+            flush();
+            executor.execute(() -> write(blockKeyframe, time, compress(world, false)));
+        }
+
+        public void flush() {
+            if (block.size() == 0) return;
+            byte[] bytes = block.toByteArray();
+            long time = blockStart;
+            block.reset();
+            blockStart = -1;
+            executor.execute(() -> write(blockPackets, time, compress(bytes, true)));
+        }
+
+        public void close() {
+            flush();
+            executor.execute(() -> {
+                try {
+                    long indexOffset = offset;
+                    output.writeInt(index.size);
+                    for (Block b : index) {
+                        output.writeByte(b.type);
+                        output.writeLong(b.time);
+                        output.writeLong(b.offset);
+                    }
+                    output.writeLong(indexOffset);
+                    output.write(indexMagic);
+                } catch (IOException e) {
+                    Log.err("Failed to write replay index", e);
+                } finally {
+                    try {
+                        output.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            });
+            executor.shutdown();
+        }
+
+        private void write(byte type, long time, byte[] data) {
+            try {
+                index.add(new Block(type, time, offset));
+                output.writeByte(type);
+                output.writeLong(time);
+                output.writeInt(data.length);
+                output.write(data);
+                offset += 1 + 8 + 4 + data.length;
+            } catch (IOException e) {
+                Log.err("Failed to write replay block", e);
+            }
+        }
+    }
+
+    /** Random access to the blocks of a version 3 replay. Not thread-safe. */
+    public static class Reader implements Closeable {
+        public final long date;
+        public final String ip, name;
+        public final Seq<Block> blocks = new Seq<>();
+        private final RandomAccessFile file;
+
+        public Reader(File input) throws IOException {
+            file = new RandomAccessFile(input, "r");
+            byte[] bytes = new byte[magic.length];
+            file.readFully(bytes);
+            if (!Arrays.equals(bytes, magic)) throw new IOException("Not a seekable replay.");
+            int ver = file.readInt();
+            if (ver != version) throw new IOException("Unknown replay version: " + ver);
+            date = file.readLong();
+            ip = file.readUTF();
+            name = file.readUTF();
+
+            long start = file.getFilePointer();
+            if (!readIndex()) {
+                scan(start);
+            }
+        }
+
+        private boolean readIndex() throws IOException {
+            long length = file.length();
+            if (length < 12 + 4) return false;
+            file.seek(length - 12);
+            long indexOffset = file.readLong();
+            byte[] bytes = new byte[indexMagic.length];
+            file.readFully(bytes);
+            if (!Arrays.equals(bytes, indexMagic) || indexOffset < 0 || indexOffset >= length) return false;
+
+            file.seek(indexOffset);
+            int count = file.readInt();
+            for (int i = 0; i < count; i++) {
+                blocks.add(new Block(file.readByte(), file.readLong(), file.readLong()));
+            }
+            return true;
+        }
+
+        private void scan(long position) throws IOException {
+            long length = file.length();
+            while (position + 13 <= length) {
+                file.seek(position);
+                byte type = file.readByte();
+                long time = file.readLong();
+                int size = file.readInt();
+                if (position + 13 + size > length) break;
+                blocks.add(new Block(type, time, position));
+                position += 13 + size;
+            }
+        }
+
+        /** @return the index of the last keyframe block at or before the time, or -1 */
+        public int keyframeBefore(long time) {
+            int result = -1;
+            for (int i = 0; i < blocks.size; i++) {
+                Block b = blocks.get(i);
+                if (b.time > time) break;
+                if (b.type == blockKeyframe) result = i;
+            }
+            return result;
+        }
+
+        /** @return the raw block data: deflated packet entries or a zlib world stream */
+        public byte[] read(int block) throws IOException {
+            file.seek(blocks.get(block).offset + 9);
+            byte[] data = new byte[file.readInt()];
+            file.readFully(data);
+            return data;
+        }
+
+        /** @return the packet entries of a packet block */
+        public DataInputStream packets(int block) throws IOException {
+            try {
+                return new DataInputStream(new ByteArrayInputStream(decompress(read(block))));
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    static byte[] compress(byte[] data, boolean raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(data.length / 4, 64));
+        byte[] buffer = new byte[8192];
+        deflater.setInput(data);
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    static byte[] decompress(byte[] data) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+        byte[] buffer = new byte[8192];
+        inflater.setInput(data);
+        try {
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            inflater.end();
+        }
+        return out.toByteArray();
+    }
+}
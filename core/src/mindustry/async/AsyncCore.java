@@ -1,15 +1,20 @@
 package mindustry.async;
 
 import arc.*;
+import arc.func.*;
 import arc.struct.*;
 import arc.util.*;
 import mindustry.game.EventType.*;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import static mindustry.Vars.*;
 
 public class AsyncCore{
+    /** Culls bullets that cannot hit anything before collision checks. */
+    public final BulletBroadphase broadphase = new BulletBroadphase();
+
     //all processes to be executed each frame
     public final Seq<AsyncProcess> processes = Seq.with(
         new PhysicsProcess()
@@ -19,6 +24,7 @@ public class AsyncCore{
     private final Seq<Future<?>> futures = new Seq<>();
 
     private ExecutorService executor;
+    private int threads;
 
     public AsyncCore(){
         Events.on(WorldLoadEvent.class, e -> {
@@ -44,16 +50,7 @@ public class AsyncCore{
             }
 
             futures.clear();
-
-            //init executor with size of potentially-modified process list
-            if(executor == null){
-                executor = Executors.newFixedThreadPool(processes.size, r -> {
-                    Thread thread = new Thread(r, "AsyncLogic-Thread");
-                    thread.setDaemon(true);
-                    thread.setUncaughtExceptionHandler((t, e) -> Threads.throwAppException(e));
-                    return thread;
-                });
-            }
+            executor();
 
             //submit all tasks
             for(AsyncProcess p : processes){
@@ -75,6 +72,66 @@ public class AsyncCore{
         }
     }
 
+    /**
+     * Runs a job for each index in [0, count) on the async threads, with the calling thread helping out.
+     * Blocks until all indices are done. Jobs must not depend on each other.
+     */
+    public void parallel(int count, Intc job){
+        executor();
+
+        if(count <= 1 || threads <= 1){
+            for(int i = 0; i < count; i++){
+                job.get(i);
+            }
+            return;
+        }
+
+        AtomicInteger next = new AtomicInteger(), done = new AtomicInteger();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        Runnable worker = () -> {
+            int i;
+            while((i = next.getAndIncrement()) < count){
+                try{
+                    job.get(i);
+                }catch(Throwable t){
+                    error.compareAndSet(null, t);
+                }finally{
+                    if(done.incrementAndGet() == count) finished.countDown();
+                }
+            }
+        };
+
+        //helpers that start after the work is gone simply exit
+        for(int i = 0; i < Math.min(threads, count - 1); i++){
+            executor.execute(worker);
+        }
+        worker.run();
+
+        //the last jobs may still be running on other threads
+        try{
+            finished.await();
+        }catch(InterruptedException e){
+            throw new RuntimeException(e);
+        }
+
+        if(error.get() != null){
+            throw new RuntimeException(error.get());
+        }
+    }
+
+    private void executor(){
+        if(executor == null){
+            threads = Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "AsyncLogic-Thread");
+                thread.setDaemon(true);
+                thread.setUncaughtExceptionHandler((t, e) -> Threads.throwAppException(e));
+                return thread;
+            });
+        }
+    }
+
     private void complete(){
         //wait for all threads to stop processing
         for(var future : futures){
@@ -0,0 +1,189 @@
+package mindustry.async;
+
+import arc.math.*;
+import arc.math.geom.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.Teams.*;
+import mindustry.gen.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Bullet collision broadphase. Before bullets are checked against unit trees, units are binned into a uniform grid and
+ * every bullet's swept hitbox is tested against it on the {@link AsyncCore} threads.
+ * Bullets that cannot overlap any enemy unit skip the serial tree query entirely.
+ * The test is conservative, so the bullets that do get checked see the exact same candidates in the same order.
+ */
+public class BulletBroadphase{
+    /** Below this amount of bullets, the broadphase is not worth the overhead. */
+    public static int minBullets = 256;
+    /** Bullets handled by each parallel job. */
+    private static final int chunkSize = 128;
+    private static final float cellSize = 64f;
+
+    private final IntSet skipped = new IntSet();
+
+    private Rect[] boxes = new Rect[0];
+    private int[] boxTeams = new int[0];
+    private int boxCount;
+
+    private int[] cellStart = new int[0], cellItems = new int[0];
+    private int cellWidth, cellHeight;
+
+    private Bullet[] bullets = new Bullet[0];
+    private boolean[] skip = new boolean[0];
+
+    /**
+     * Sync. Must be called right before bullet collisions are checked, when positions are final.
+     * @return IDs of bullets that cannot collide with any unit this frame, or null if the broadphase did not run.
+     */
+    public @Nullable IntSet update(){
+        int count = Groups.bullet.size();
+        if(count < minBullets || world.isInvalidMap()) return null;
+
+        buildGrid();
+
+        if(bullets.length < count){
+            bullets = new Bullet[count];
+            skip = new boolean[count];
+        }
+
+        for(int i = 0; i < count; i++){
+            bullets[i] = Groups.bullet.index(i);
+        }
+
+        asyncCore.parallel(Mathf.ceil(count / (float)chunkSize), chunk -> {
+            Rect r1 = new Rect(), r2 = new Rect();
+            int end = Math.min((chunk + 1) * chunkSize, count);
+            for(int i = chunk * chunkSize; i < end; i++){
+                skip[i] = !overlapsAny(bullets[i], r1, r2);
+            }
+        });
+
+        skipped.clear();
+        for(int i = 0; i < count; i++){
+            if(skip[i]){
+                skipped.add(bullets[i].id);
+            }
+            bullets[i] = null;
+        }
+
+        return skipped;
+    }
+
+    /** Bins the units of every present team, exactly the units that are in the team trees. */
+    private void buildGrid(){
+        boxCount = 0;
+
+        Seq<TeamData> present = state.teams.present;
+        for(int t = 0; t < present.size; t++){
+            TeamData data = present.items[t];
+            var units = data.units;
+
+            for(int i = 0; i < units.size; i++){
+                if(boxCount >= boxes.length){
+                    int size = Math.max(boxCount * 2, 64);
+                    Rect[] next = new Rect[size];
+                    System.arraycopy(boxes, 0, next, 0, boxes.length);
+                    for(int j = boxes.length; j < size; j++){
+                        next[j] = new Rect();
+                    }
+                    boxes = next;
+                    boxTeams = Arrays.copyOf(boxTeams, size);
+                }
+
+                units.items[i].hitbox(boxes[boxCount]);
+                boxTeams[boxCount] = data.team.id;
+                boxCount++;
+            }
+        }
+
+        cellWidth = Math.max(Mathf.ceil(world.unitWidth() / cellSize), 1);
+        cellHeight = Math.max(Mathf.ceil(world.unitHeight() / cellSize), 1);
+        int cells = cellWidth * cellHeight;
+
+        if(cellStart.length < cells + 1){
+            cellStart = new int[cells + 1];
+        }
+
+        for(int i = 0; i <= cells; i++){
+            cellStart[i] = 0;
+        }
+
+        //count entries per cell, then convert to offsets and fill
+        int total = 0;
+        for(int i = 0; i < boxCount; i++){
+            Rect r = boxes[i];
+            int minx = cellX(r.x), maxx = cellX(r.x + r.width), miny = cellY(r.y), maxy = cellY(r.y + r.height);
+            for(int cy = miny; cy <= maxy; cy++){
+                for(int cx = minx; cx <= maxx; cx++){
+                    cellStart[cx + cy * cellWidth + 1]++;
+                    total++;
+                }
+            }
+        }
+
+        for(int i = 0; i < cells; i++){
+            cellStart[i + 1] += cellStart[i];
+        }
+
+        if(cellItems.length < total){
+            cellItems = new int[Math.max(total, cellItems.length * 2)];
+        }
+
+        for(int i = 0; i < boxCount; i++){
+            Rect r = boxes[i];
+            int minx = cellX(r.x), maxx = cellX(r.x + r.width), miny = cellY(r.y), maxy = cellY(r.y + r.height);
+            for(int cy = miny; cy <= maxy; cy++){
+                for(int cx = minx; cx <= maxx; cx++){
+                    //cellStart[cell] doubles as a write cursor, ending up at the start of the next cell
+                    cellItems[cellStart[cx + cy * cellWidth]++] = i;
+                }
+            }
+        }
+
+        //restore the start offsets
+        for(int i = cells; i > 0; i--){
+            cellStart[i] = cellStart[i - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /** Same bounds as the ones used by {@link mindustry.entities.EntityCollisions} for bullet collision queries. */
+    private boolean overlapsAny(Bullet bullet, Rect r1, Rect r2){
+        bullet.hitbox(r1);
+        r1.x += (bullet.lastX - bullet.x);
+        r1.y += (bullet.lastY - bullet.y);
+
+        bullet.hitbox(r2);
+        r2.merge(r1);
+
+        int team = bullet.team.id;
+        int minx = cellX(r2.x), maxx = cellX(r2.x + r2.width), miny = cellY(r2.y), maxy = cellY(r2.y + r2.height);
+
+        for(int cy = miny; cy <= maxy; cy++){
+            for(int cx = minx; cx <= maxx; cx++){
+                int cell = cx + cy * cellWidth;
+                for(int i = cellStart[cell]; i < cellStart[cell + 1]; i++){
+                    int box = cellItems[i];
+                    if(boxTeams[box] != team && boxes[box].overlaps(r2)){
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private int cellX(float x){
+        return Mathf.clamp((int)Math.floor(x / cellSize), 0, cellWidth - 1);
+    }
+
+    private int cellY(float y){
+        return Mathf.clamp((int)Math.floor(y / cellSize), 0, cellHeight - 1);
+    }
+}
@@ -124,14 +124,22 @@ public class PhysicsProcess implements AsyncProcess{
     public static class PhysicsWorld{
         //how much to soften movement by
         private static final float scl = 1.25f;
+        //minimum amount of bodies in each strip for the parallel solver to be used
+        private static final int minStripBodies = 256;
 
+        private final Rect bounds;
         private final QuadTree<PhysicsBody>[] trees = new QuadTree[layers];
         private final Seq<PhysicsBody> bodies = new Seq<>(false, 16, PhysicsBody.class);
         private final Seq<PhysicsBody> seq = new Seq<>(PhysicsBody.class);
         private final Rect rect = new Rect();
         private final Vec2 vec = new Vec2();
 
+        //parallel solver state
+        private Strip[] strips = {};
+        private final IntSeq boundary = new IntSeq();
+
         public PhysicsWorld(Rect bounds){
+            this.bounds = new Rect(bounds);
             for(int i = 0; i < layers; i++){
                 trees[i] = new QuadTree<>(new Rect(bounds));
             }
@@ -146,6 +154,106 @@ public class PhysicsProcess implements AsyncProcess{
         }
 
         public void update(){
+            int count = Math.min(Runtime.getRuntime().availableProcessors(), bodies.size / minStripBodies);
+            if(count > 1){
+                updateParallel(count);
+            }else{
+                updateSerial();
+            }
+        }
+
+        /** Resolves all overlaps in body order on the current thread. */
+        public void updateSerial(){
+            rebuild();
+
+            var bodyItems = bodies.items;
+            int bodySize = bodies.size;
+
+            for(int i = 0; i < bodySize; i++){
+                PhysicsBody body = bodyItems[i];
+
+                //for clients, the only body that collides is the local one; all other physics simulations are handled by the server.
+                if(!body.local) continue;
+
+                solve(body, trees[body.layer], rect, seq, vec);
+            }
+        }
+
+        /**
+         * Splits the world into vertical strips that are solved in parallel. Bodies that are too close to a strip edge
+         * to be sure all their contacts are inside it are solved afterwards, serially and in body order, against the whole world.
+         * The result does not depend on thread timing, but differs slightly from {@link #updateSerial()},
+         * since overlaps are resolved in a different order.
+         */
+        public void updateParallel(int count){
+            rebuild();
+
+            var bodyItems = bodies.items;
+            int bodySize = bodies.size;
+
+            float maxRadius = 0f;
+            for(int i = 0; i < bodySize; i++){
+                maxRadius = Math.max(maxRadius, bodyItems[i].radius);
+            }
+
+            //a body's contacts are at most its radius plus the largest radius away; leave the same again for movement during the step
+            float margin = maxRadius * 2f;
+
+            //strips must be wide enough to have an interior at all
+            count = Math.min(count, (int)(bounds.width / (margin * 4f + 1f)));
+            if(count <= 1){
+                count = 1;
+            }
+
+            if(strips.length != count){
+                strips = new Strip[count];
+                for(int i = 0; i < count; i++){
+                    strips[i] = new Strip(bounds);
+                }
+            }
+
+            for(Strip strip : strips){
+                strip.members.clear();
+                strip.interior.clear();
+            }
+            boundary.clear();
+
+            float width = bounds.width / count;
+
+            for(int i = 0; i < bodySize; i++){
+                PhysicsBody body = bodyItems[i];
+                int index = Mathf.clamp((int)((body.x - bounds.x) / width), 0, count - 1);
+                float min = bounds.x + index * width, max = min + width;
+                Strip strip = strips[index];
+
+                strip.members.add(i);
+
+                if(body.local){
+                    if(body.x - body.radius - margin >= min && body.x + body.radius + margin <= max){
+                        strip.interior.add(i);
+                    }else{
+                        boundary.add(i);
+                    }
+                }
+            }
+
+            //each strip only reads and moves its own members, so strips never touch the same body
+            if(Vars.asyncCore != null){
+                Vars.asyncCore.parallel(count, i -> strips[i].solve(bodyItems));
+            }else{
+                for(Strip strip : strips){
+                    strip.solve(bodyItems);
+                }
+            }
+
+            //deterministic fix-up pass for bodies near strip edges
+            for(int i = 0; i < boundary.size; i++){
+                PhysicsBody body = bodyItems[boundary.items[i]];
+                solve(body, trees[body.layer], rect, seq, vec);
+            }
+        }
+
+        private void rebuild(){
             for(int i = 0; i < layers; i++){
                 trees[i].clear();
             }
@@ -158,44 +266,72 @@ public class PhysicsProcess implements AsyncProcess{
                 body.collided = false;
                 trees[body.layer].insert(body);
             }
+        }
 
-            for(int i = 0; i < bodySize; i++){
-                PhysicsBody body = bodyItems[i];
+        private static void solve(PhysicsBody body, QuadTree<PhysicsBody> tree, Rect rect, Seq<PhysicsBody> seq, Vec2 vec){
+            body.hitbox(rect);
 
-                //for clients, the only body that collides is the local one; all other physics simulations are handled by the server.
-                if(!body.local) continue;
+            seq.size = 0;
+            tree.intersect(rect, seq);
+            int size = seq.size;
+            var items = seq.items;
 
-                body.hitbox(rect);
+            for(int j = 0; j < size; j++){
+                PhysicsBody other = items[j];
 
-                seq.size = 0;
-                trees[body.layer].intersect(rect, seq);
-                int size = seq.size;
-                var items = seq.items;
+                if(other == body || other.collided) continue;
 
-                for(int j = 0; j < size; j++){
-                    PhysicsBody other = items[j];
+                float rs = body.radius + other.radius;
+                float dst = Mathf.dst(body.x, body.y, other.x, other.y);
 
-                    if(other == body || other.collided) continue;
+                if(dst < rs){
+                    vec.set(body.x - other.x, body.y - other.y).setLength(rs - dst);
+                    float ms = body.mass + other.mass;
+                    float m1 = other.mass / ms, m2 = body.mass / ms;
 
-                    float rs = body.radius + other.radius;
-                    float dst = Mathf.dst(body.x, body.y, other.x, other.y);
+                    //first body is always local due to guard check above
+                    body.x += vec.x * m1 / scl;
+                    body.y += vec.y * m1 / scl;
 
-                    if(dst < rs){
-                        vec.set(body.x - other.x, body.y - other.y).setLength(rs - dst);
-                        float ms = body.mass + other.mass;
-                        float m1 = other.mass / ms, m2 = body.mass / ms;
+                    if(other.local){
+                        other.x -= vec.x * m2 / scl;
+                        other.y -= vec.y * m2 / scl;
+                    }
+                }
+            }
+            body.collided = true;
+        }
 
-                        //first body is always local due to guard check above
-                        body.x += vec.x * m1 / scl;
-                        body.y += vec.y * m1 / scl;
+        private static class Strip{
+            final QuadTree<PhysicsBody>[] trees = new QuadTree[layers];
+            //all bodies with their center in this strip
+            final IntSeq members = new IntSeq();
+            //local bodies whose contacts are guaranteed to be members
+            final IntSeq interior = new IntSeq();
+            final Seq<PhysicsBody> seq = new Seq<>(PhysicsBody.class);
+            final Rect rect = new Rect();
+            final Vec2 vec = new Vec2();
+
+            Strip(Rect bounds){
+                for(int i = 0; i < layers; i++){
+                    trees[i] = new QuadTree<>(new Rect(bounds));
+                }
+            }
 
-                        if(other.local){
-                            other.x -= vec.x * m2 / scl;
-                            other.y -= vec.y * m2 / scl;
-                        }
-                    }
+            void solve(PhysicsBody[] bodies){
+                for(int i = 0; i < layers; i++){
+                    trees[i].clear();
+                }
+
+                for(int i = 0; i < members.size; i++){
+                    PhysicsBody body = bodies[members.items[i]];
+                    trees[body.layer].insert(body);
+                }
+
+                for(int i = 0; i < interior.size; i++){
+                    PhysicsBody body = bodies[interior.items[i]];
+                    PhysicsWorld.solve(body, trees[body.layer], rect, seq, vec);
                 }
-                body.collided = true;
             }
         }
 
@@ -5945,5 +5945,14 @@ public class Blocks{
         }};
 
         //endregion
+
+        //dormancy is opt-in, as subclasses in mods may do work that dormant() doesn't know about; every block so far is vanilla
+        for(Block block : content.blocks()){
+            if(block instanceof GenericCrafter){
+                block.wakeOn = EnumSet.of(WakeEvent.itemReceived, WakeEvent.liquidReceived, WakeEvent.powerChanged);
+            }else if(block instanceof Drill){
+                block.wakeOn = EnumSet.of(WakeEvent.liquidReceived, WakeEvent.powerChanged);
+            }
+        }
     }
 }
@@ -30,6 +30,7 @@ import mindustry.world.*;
 import mindustry.world.modules.*;
 
 import java.io.*;
+import java.nio.*;
 import java.util.*;
 import java.util.zip.*;
 
@@ -39,6 +40,8 @@ public class NetClient implements ApplicationListener{
     private static final float dataTimeout = 60 * 30;
     /** ticks between syncs, e.g. 5 means 60/5 = 12 syncs/sec*/
     private static final float playerSyncTime = 4;
+    /** Gaps between updates of an entity longer than this, in ms, are not used as its interpolation time. */
+    private static final long maxSyncGap = 1000;
     private static final Reads dataReads = new Reads(null);
 
     private long ping;
@@ -465,8 +468,12 @@ public class NetClient implements ApplicationListener{
     }
 
     public static void readSyncEntity(DataInputStream input, Reads read) throws IOException{
-        int id = input.readInt();
-        byte typeID = input.readByte();
+        readSyncEntity(read);
+    }
+
+    public static void readSyncEntity(Reads read){
+        int id = read.i();
+        byte typeID = read.b();
 
         Syncc entity = Groups.sync.getByID(id);
         boolean add = false, created = false;
@@ -486,6 +493,11 @@ public class NetClient implements ApplicationListener{
             created = true;
         }
 
+        //entities left out of delta snapshots would otherwise be interpolated over the whole time they were left out
+        if(!created && entity.lastUpdated() != 0 && Time.timeSinceMillis(entity.lastUpdated()) > maxSyncGap){
+            entity.lastUpdated(0);
+        }
+
         //read the entity
         entity.readSync(read);
 
@@ -503,11 +515,10 @@ public class NetClient implements ApplicationListener{
     @Remote(variants = Variant.one, priority = PacketPriority.low, unreliable = true)
     public static void entitySnapshot(short amount, byte[] data){
         try{
-            netClient.byteStream.setBytes(data);
-            DataInputStream input = netClient.dataStream;
+            Reads read = snapshotReads(data);
 
             for(int j = 0; j < amount; j++){
-                readSyncEntity(input, Reads.get(input));
+                readSyncEntity(read);
             }
         }catch(Exception e){
             //don't disconnect, just log it
@@ -529,28 +540,34 @@ public class NetClient implements ApplicationListener{
     @Remote(variants = Variant.both, priority = PacketPriority.low, unreliable = true)
     public static void blockSnapshot(short amount, byte[] data){
         try{
-            netClient.byteStream.setBytes(data);
-            DataInputStream input = netClient.dataStream;
-
-            for(int i = 0; i < amount; i++){
-                int pos = input.readInt();
-                short block = input.readShort();
-                Tile tile = world.tile(pos);
-                if(tile == null || tile.build == null){
-                    Log.warn("Missing entity at @. Skipping block snapshot.", tile);
-                    break;
-                }
-                if(tile.build.block.id != block){
-                    Log.warn("Block ID mismatch at @: @ != @. Skipping block snapshot.", tile, tile.build.block.id, block);
-                    break;
-                }
-                tile.build.readAll(Reads.get(input), tile.build.version());
-            }
+            readBlockSnapshot(amount, snapshotReads(data));
         }catch(Exception e){
             Log.err(e);
         }
     }
 
+    /** Snapshots are read from a plain buffer, as the byte stream behind {@link #dataStream} synchronizes on every byte. */
+    private static Reads snapshotReads(byte[] data){
+        return new Reads(new ByteBufferInput(ByteBuffer.wrap(data)));
+    }
+
+    public static void readBlockSnapshot(int amount, Reads read){
+        for(int i = 0; i < amount; i++){
+            int pos = read.i();
+            short block = read.s();
+            Tile tile = world.tile(pos);
+            if(tile == null || tile.build == null){
+                Log.warn("Missing entity at @. Skipping block snapshot.", tile);
+                break;
+            }
+            if(tile.build.block.id != block){
+                Log.warn("Block ID mismatch at @: @ != @. Skipping block snapshot.", tile, tile.build.block.id, block);
+                break;
+            }
+            tile.build.readAll(read, tile.build.version());
+        }
+    }
+
     @Remote(variants = Variant.one, priority = PacketPriority.low, unreliable = true)
     public static void stateSnapshot(float waveTime, int wave, int enemies, boolean paused, boolean gameOver, int timeData, byte tps, long rand0, long rand1, byte[] coreData){
         try{
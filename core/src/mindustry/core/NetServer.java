@@ -21,13 +21,15 @@ import mindustry.graphics.*;
 import mindustry.logic.*;
 import mindustry.net.*;
 import mindustry.net.Administration.*;
+import mindustry.net.NetConnection.*;
+import mindustry.net.NetworkIO.*;
 import mindustry.net.Packets.*;
 import mindustry.world.*;
 
 import java.io.*;
 import java.net.*;
 import java.nio.*;
-import java.util.zip.*;
+import java.util.concurrent.*;
 
 import static arc.util.Log.*;
 import static mindustry.Vars.*;
@@ -37,9 +39,12 @@ public class NetServer implements ApplicationListener{
     private static final int maxSnapshotSize = 800;
     private static final int timerBlockSync = 0, timerHealthSync = 1;
     private static final float blockSyncTime = 60 * 6, healthSyncTime = 30;
+    /** Amount of consecutive snapshots unchanged entity or building data is sent in before it is left out. Makes up for lost packets. */
+    private static final int deltaSyncRepeats = 3;
     private static final FloatBuffer fbuffer = FloatBuffer.allocate(20);
     private static final Writes dataWrites = new Writes(null);
     private static final IntSeq hiddenIds = new IntSeq();
+    private static final IntSet nearIds = new IntSet();
     private static final IntSeq healthSeq = new IntSeq(maxSnapshotSize / 4 + 1);
     private static final Vec2 vector = new Vec2();
     /** If a player goes away of their server-side coordinates by this distance, they get teleported back. */
@@ -115,6 +120,28 @@ public class NetServer implements ApplicationListener{
     private ReusableByteOutStream syncStream = new ReusableByteOutStream();
     /** Data stream for writing player sync data to. */
     private DataOutputStream dataStream = new DataOutputStream(syncStream);
+    /** Stream holding the sync data of every entity, encoded once per sync tick and shared by all players. */
+    private ReusableByteOutStream entityCacheStream = new ReusableByteOutStream();
+    private DataOutputStream entityCacheData = new DataOutputStream(entityCacheStream);
+    /** Entities in the entity cache, in write order. */
+    private Seq<Syncc> entityCache = new Seq<>(false, 16, Syncc.class);
+    /** Start offset of each cached entity in the entity cache stream, with a trailing end offset. */
+    private IntSeq entityCacheOffsets = new IntSeq();
+    /** Whether each cached entity is stored in a spatial group, and is thus subject to interest management. */
+    private BoolSeq entityCacheSpatial = new BoolSeq();
+    /** Hash of the sync data of each cached entity, used for delta sync. */
+    private LongSeq entityCacheHashes = new LongSeq();
+    /** Whether the entity cache is up to date for this sync tick. */
+    private boolean entityCacheValid;
+    /** Stream for encoding single buildings into during incremental block sync. */
+    private ReusableByteOutStream blockStream = new ReusableByteOutStream();
+    private DataOutputStream blockData = new DataOutputStream(blockStream);
+    /** Data last sent for each building position, used for incremental block sync. */
+    private IntMap<SyncState> blockStates = new IntMap<>();
+    /** Amount of block snapshots written so far, used to pick which buildings get refreshed regardless of changes. */
+    private int blockSnapshots;
+    /** Compressed world data shared by joins in the current frame until the world changes. Null until someone joins. */
+    private @Nullable CompletableFuture<CompressedWorld> worldData;
     /** Packet handlers for custom types of messages. */
     private ObjectMap<String, Seq<Cons2<Player, String>>> customPacketHandlers = new ObjectMap<>();
 
@@ -296,6 +323,16 @@ public class NetServer implements ApplicationListener{
             Events.fire(new PlayerConnect(player));
         });
 
+        Events.on(WorldLoadEvent.class, e -> {
+            blockStates.clear();
+            worldData = null;
+        });
+
+        //joins handled after a change in the same frame must not get the old world
+        Events.on(TileChangeEvent.class, e -> worldData = null);
+        Events.on(ConfigEvent.class, e -> worldData = null);
+        Events.on(BuildTeamChangeEvent.class, e -> worldData = null);
+
         registerCommands();
     }
 
@@ -497,14 +534,35 @@ public class NetServer implements ApplicationListener{
     }
 
     public void sendWorldData(Player player){
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        DeflaterOutputStream def = new FastDeflaterOutputStream(stream);
-        NetworkIO.writeWorld(player, def);
-        WorldStream data = new WorldStream();
-        data.stream = new ByteArrayInputStream(stream.toByteArray());
-        player.con.sendStream(data);
-
-        debug("Packed @ bytes of world data.", stream.size());
+        try{
+            //the map is only serialized once per frame; joins in the same frame share it, and compression happens off the main thread
+            if(worldData == null){
+                ReusableByteOutStream data = new ReusableByteOutStream();
+                NetworkIO.writeWorldData(new DataOutputStream(data));
+                worldData = CompletableFuture.supplyAsync(() -> NetworkIO.compressWorldData(data.getBytes(), data.size()), mainExecutor);
+            }
+
+            ReusableByteOutStream header = new ReusableByteOutStream();
+            NetworkIO.writeWorldHeader(player, new DataOutputStream(header));
+
+            worldData.thenApply(world -> NetworkIO.spliceWorld(header.getBytes(), header.size(), world)).whenComplete((bytes, error) -> Core.app.post(() -> {
+                if(error != null){
+                    err(error);
+                    if(player.con != null) player.con.kick(KickReason.serverRestarting);
+                    return;
+                }
+
+                if(player.con == null || !player.con.isConnected()) return;
+
+                WorldStream stream = new WorldStream();
+                stream.stream = new ByteArrayInputStream(bytes);
+                player.con.sendStream(stream);
+
+                debug("Packed @ bytes of world data.", bytes.length);
+            }));
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
     }
 
     public void addPacketHandler(String type, Cons2<Player, String> handler){
@@ -828,6 +886,9 @@ public class NetServer implements ApplicationListener{
 
     @Override
     public void update(){
+        //world data may change from here on
+        worldData = null;
+
         if(!headless && !closing && net.server() && state.isMenu()){
             closing = true;
             ui.loadfrag.show("@server.closing");
@@ -888,14 +949,49 @@ public class NetServer implements ApplicationListener{
     public void writeBlockSnapshots() throws IOException{
         syncStream.reset();
 
+        boolean incremental = Config.incrementalBlockSync.bool();
+        int refresh = Math.max(Config.blockSyncRefresh.num(), 1), slice = blockSnapshots++ % refresh, index = 0;
+
         short sent = 0;
         for(Building entity : Groups.build){
             if(!entity.block.sync) continue;
-            sent++;
 
-            dataStream.writeInt(entity.pos());
-            dataStream.writeShort(entity.block.id);
-            entity.writeAll(Writes.get(dataStream));
+            if(incremental){
+                blockStream.reset();
+                blockData.writeInt(entity.pos());
+                blockData.writeShort(entity.block.id);
+                entity.writeAll(Writes.get(blockData));
+
+                byte[] bytes = blockStream.getBytes();
+                int length = blockStream.size();
+                long hash = hash(bytes, 0, length);
+
+                //unchanged buildings are skipped, except for a round-robin slice that gets resent as a safety net
+                int pos = entity.pos();
+                boolean refreshed = index++ % refresh == slice;
+                SyncState last = blockStates.get(pos);
+                if(last == null){
+                    blockStates.put(pos, last = new SyncState());
+                    last.hash = ~hash;
+                }
+
+                if(last.hash == hash){
+                    last.repeats ++;
+                    if(!refreshed && last.repeats > deltaSyncRepeats) continue;
+                }else{
+                    //snapshots are unreliable, so changes are sent in a few consecutive snapshots like entity deltas
+                    last.hash = hash;
+                    last.repeats = 1;
+                }
+
+                syncStream.write(bytes, 0, length);
+            }else{
+                dataStream.writeInt(entity.pos());
+                dataStream.writeShort(entity.block.id);
+                entity.writeAll(Writes.get(dataStream));
+            }
+
+            sent++;
 
             if(syncStream.size() > maxSnapshotSize){
                 dataStream.close();
@@ -938,17 +1034,78 @@ public class NetServer implements ApplicationListener{
         hiddenIds.clear();
         int sent = 0;
 
-        for(Syncc entity : Groups.sync){
+        updateEntityCache();
+
+        int radius = Config.syncRadius.num(), divisor = Config.farSyncDivisor.num();
+        //when interest management is enabled, far entities are only written on some snapshots
+        boolean culling = radius > 0 && !(divisor > 0 && player.con.snapshotsSent % divisor == 0);
+
+        if(culling){
+            var con = player.con;
+            float range = radius * tilesize;
+            //fall back to the player position if the client has not sent its view yet
+            Rect rect = con.viewWidth <= 0f ?
+                Tmp.r1.setCentered(player.x, player.y, range * 2f) :
+                Tmp.r1.setCentered(con.viewX, con.viewY, con.viewWidth + range * 2f, con.viewHeight + range * 2f);
+
+            nearIds.clear();
+            Groups.unit.intersect(rect.x, rect.y, rect.width, rect.height, u -> nearIds.add(u.id()));
+            Groups.bullet.intersect(rect.x, rect.y, rect.width, rect.height, b -> nearIds.add(b.id()));
+        }
+
+        var syncStates = player.con.syncStates;
+        int snapshot = player.con.snapshotsSent;
+        boolean deltaEnabled = Config.deltaSync.bool(), delta = deltaEnabled;
+
+        //keyframes send everything
+        if(delta && snapshot % Math.max(Config.deltaSyncKeyframe.num(), 1) == 0){
+            delta = false;
+        }
+
+        byte[] cached = entityCacheStream.getBytes();
+        Syncc[] entities = entityCache.items;
+        int[] offsets = entityCacheOffsets.items;
+        long[] hashes = entityCacheHashes.items;
+        boolean[] spatial = entityCacheSpatial.items;
+
+        for(int i = 0; i < entityCache.size; i++){
+            Syncc entity = entities[i];
+
             //TODO write to special list
             if(entity.isSyncHidden(player)){
                 hiddenIds.add(entity.id());
+                //the client removes hidden entities, so they have to be sent in full once they are visible again
+                syncStates.remove(entity.id());
+                continue;
+            }
+
+            //skip far entities, the client keeps interpolating their last known state
+            if(culling && spatial[i] && !nearIds.contains(entity.id())){
                 continue;
             }
 
-            //write all entities now
-            dataStream.writeInt(entity.id()); //write id
-            dataStream.writeByte(entity.classId() & 0xFF); //write type ID
-            entity.writeSync(Writes.get(dataStream)); //write entity
+            if(deltaEnabled){
+                long hash = hashes[i];
+                SyncState last = syncStates.get(entity.id());
+                if(last == null){
+                    syncStates.put(entity.id(), last = new SyncState());
+                    last.hash = ~hash;
+                }
+                last.seen = snapshot;
+
+                if(last.hash == hash){
+                    last.repeats ++;
+                    //the client already has this exact state; it keeps it until something changes
+                    if(delta && last.repeats > deltaSyncRepeats) continue;
+                }else{
+                    //changes are sent in a few consecutive snapshots, so the client interpolates them over the usual interval
+                    last.hash = hash;
+                    last.repeats = 1;
+                }
+            }
+
+            //copy the pre-encoded entity data
+            syncStream.write(cached, offsets[i], offsets[i + 1] - offsets[i]);
 
             sent++;
 
@@ -970,9 +1127,56 @@ public class NetServer implements ApplicationListener{
             Call.hiddenSnapshot(player.con, hiddenIds);
         }
 
+        //drop the state of entities that were not seen since the last keyframe
+        if(deltaEnabled && !delta){
+            var it = syncStates.values().iterator();
+            while(it.hasNext()){
+                if(it.next().seen < snapshot - Math.max(Config.deltaSyncKeyframe.num(), 1)) it.remove();
+            }
+        }
+
         player.con.snapshotsSent++;
     }
 
+    /** Encodes the sync data of every entity into the shared entity cache, if it has not been done yet this sync tick. */
+    void updateEntityCache() throws IOException{
+        if(entityCacheValid) return;
+
+        entityCacheStream.reset();
+        entityCache.clear();
+        entityCacheOffsets.clear();
+        entityCacheSpatial.clear();
+        entityCacheHashes.clear();
+
+        boolean delta = Config.deltaSync.bool();
+
+        for(Syncc entity : Groups.sync){
+            int start = entityCacheStream.size();
+
+            entityCache.add(entity);
+            entityCacheSpatial.add(entity instanceof Unitc || entity instanceof Bulletc);
+            entityCacheOffsets.add(start);
+
+            entityCacheData.writeInt(entity.id()); //write id
+            entityCacheData.writeByte(entity.classId() & 0xFF); //write type ID
+            entity.writeSync(Writes.get(entityCacheData)); //write entity
+
+            entityCacheHashes.add(delta ? hash(entityCacheStream.getBytes(), start, entityCacheStream.size()) : 0L);
+        }
+
+        entityCacheOffsets.add(entityCacheStream.size());
+        entityCacheValid = true;
+    }
+
+    /** @return a 64-bit FNV-1a hash of the bytes in [start, end), used to detect unchanged sync data. */
+    public static long hash(byte[] bytes, int start, int end){
+        long hash = 0xcbf29ce484222325L;
+        for(int i = start; i < end; i++){
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
     public String fixName(String name){
         name = name.trim().replace("\n", "").replace("\t", "");
         if(name.equals("[") || name.equals("]")){
@@ -1025,6 +1229,9 @@ public class NetServer implements ApplicationListener{
     void sync(){
         try{
             int interval = Config.snapshotInterval.num();
+            //entities are encoded lazily at most once per sync tick, for the first player that needs a snapshot
+            entityCacheValid = false;
+
             Groups.player.each(p -> !p.isLocal(), player -> {
                 if(player.con == null || !player.con.isConnected()){
                     onDisconnect(player, "disappeared");
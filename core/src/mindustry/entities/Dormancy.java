@@ -0,0 +1,85 @@
+package mindustry.entities;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.core.*;
+import mindustry.gen.*;
+import mindustry.world.*;
+import mindustry.world.meta.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Keeps track of dormant buildings. A building goes dormant when its block declares {@link Block#wakeOn} events and
+ * {@link Building#dormant()} holds for a second; it is then taken out of the update loop like any sleeping building.
+ * Item, liquid and power events are delivered by the building that receives them. This wakes buildings whose block
+ * declared {@link WakeEvent#timer} once {@link Block#wakeInterval} has passed, and reports sleeping and awake buildings
+ * per block.
+ */
+public class Dormancy{
+    private final PQueue<Alarm> alarms = new PQueue<>(12, (a, b) -> Float.compare(a.time, b.time));
+    //the latest alarm of each building; earlier ones are stale
+    private final ObjectMap<Building, Alarm> latest = new ObjectMap<>();
+    private @Nullable GameState lastState;
+
+    /** Called by a building that just went to sleep. */
+    public void schedule(Building build){
+        checkState();
+
+        Alarm alarm = new Alarm(build, state.tick + build.block.wakeInterval);
+        latest.put(build, alarm);
+        alarms.add(alarm);
+    }
+
+    /** Wakes buildings whose timer ran out. Called once per update. */
+    public void update(){
+        checkState();
+
+        while(!alarms.empty() && alarms.peek().time <= state.tick){
+            Alarm alarm = alarms.poll();
+            if(latest.get(alarm.build) != alarm) continue;
+
+            latest.remove(alarm.build);
+            if(alarm.build.isValid() && alarm.build.isSleeping()){
+                alarm.build.noSleep();
+            }
+        }
+    }
+
+    /** @return the amount of buildings waiting for their timer. */
+    public int scheduled(){
+        return latest.size;
+    }
+
+    /** @return the amount of awake buildings per block. Sleeping ones are counted in {@link Block#sleepingBuilds}. */
+    public ObjectIntMap<Block> awake(){
+        ObjectIntMap<Block> counts = new ObjectIntMap<>();
+        for(Building build : Groups.build){
+            counts.increment(build.block);
+        }
+        return counts;
+    }
+
+    void checkState(){
+        if(state != lastState){
+            lastState = state;
+            alarms.clear();
+            latest.clear();
+
+            //buildings of the previous world were discarded without waking up
+            for(Block block : content.blocks()){
+                block.sleepingBuilds = 0;
+            }
+        }
+    }
+
+    static class Alarm{
+        final Building build;
+        final float time;
+
+        Alarm(Building build, float time){
+            this.build = build;
+            this.time = time;
+        }
+    }
+}
@@ -22,6 +22,8 @@ public class EntityCollisions{
     private Seq<Hitboxc> arrOut = new Seq<>(Hitboxc.class);
     private Cons<Hitboxc> hitCons = this::updateCollision;
     private Cons<QuadTree> treeCons = tree -> tree.intersect(r2, arrOut);
+    //entities that the broadphase has ruled out for this collision pass
+    private @Nullable IntSet skipped;
 
     public void moveCheck(Hitboxc entity, float deltax, float deltay, SolidPred solidCheck){
         if(!solidCheck.solid(entity.tileX(), entity.tileY())){
@@ -214,10 +216,14 @@ public class EntityCollisions{
 
     @SuppressWarnings("unchecked")
     public <T extends Hitboxc> void collide(EntityGroup<T> groupa){
+        skipped = groupa == Groups.bullet && asyncCore != null ? asyncCore.broadphase.update() : null;
         groupa.each((Cons<T>)hitCons);
+        skipped = null;
     }
 
     private void updateCollision(Hitboxc solid){
+        if(skipped != null && skipped.contains(solid.id())) return;
+
         solid.hitbox(r1);
         r1.x += (solid.lastX() - solid.getX());
         r1.y += (solid.lastY() - solid.getY());
@@ -0,0 +1,115 @@
+package mindustry.entities;
+
+import arc.func.*;
+import arc.math.geom.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.core.*;
+import mindustry.game.*;
+import mindustry.game.Teams.*;
+import mindustry.gen.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Shares the unit searches of radar instructions and target searches within one update.
+ * Searches are grouped by team, grid cell and range bucket. The first search in a group collects every unit of the team
+ * that could be in range of any position in the cell, in the order the quadtree yields them; later ones filter that list
+ * with the same hitbox test the quadtree uses, so callers see the same units in the same order as a direct search.
+ * Groups are dropped whenever the unit trees are rebuilt.
+ */
+public class UnitQueryCache{
+    /** Cell size in world units. */
+    public static final float cellSize = 8f * tilesize;
+    /** Search ranges are rounded up to a multiple of this. */
+    public static final float rangeStep = 4f * tilesize;
+
+    private final LongMap<Seq<Unit>> groups = new LongMap<>();
+    private final Seq<Seq<Unit>> pool = new Seq<>();
+    private final Rect rect = new Rect();
+    private long updateId = -1;
+    private @Nullable GameState lastState;
+
+    /** If false, every search goes straight to the unit trees. */
+    public boolean enabled = true;
+    /** Searches answered from a group that was already collected, and searches that collected a group. */
+    public long hits, misses;
+
+    /** Iterates over all units of a team in a rectangle, like {@link Units#nearby(Team, float, float, float, float, Cons)}. */
+    public void nearby(Team team, float x, float y, float width, float height, Cons<Unit> cons){
+        float range = Math.max(width, height) / 2f;
+        int bucket = (int)Math.ceil(range / rangeStep);
+
+        //too large to be worth grouping, or to fit in a key
+        if(!enabled || bucket > 0xff){
+            team.data().tree().intersect(x, y, width, height, cons);
+            return;
+        }
+
+        if(state != lastState || state.updateId != updateId){
+            clear();
+            lastState = state;
+            updateId = state.updateId;
+        }
+
+        int cx = (int)Math.floor((x + width / 2f) / cellSize), cy = (int)Math.floor((y + height / 2f) / cellSize);
+        long key = (long)team.id << 40 | (long)bucket << 32 | (cx & 0xffffL) << 16 | (cy & 0xffffL);
+
+        Seq<Unit> group = groups.get(key);
+        if(group == null){
+            misses ++;
+            //a little extra so rounding in the cell center can't leave part of a search outside the group
+            float expand = bucket * rangeStep + 1f;
+            group = pool.isEmpty() ? new Seq<>(Unit.class) : pool.pop();
+            team.data().tree().intersect(cx * cellSize - expand, cy * cellSize - expand, cellSize + expand * 2f, cellSize + expand * 2f, group::add);
+            groups.put(key, group);
+        }else{
+            hits ++;
+        }
+
+        Unit[] items = group.items;
+        for(int i = 0; i < group.size; i++){
+            Unit unit = items[i];
+            unit.hitbox(rect);
+            if(rect.overlaps(x, y, width, height)){
+                cons.get(unit);
+            }
+        }
+    }
+
+    /** Iterates over all units of a team in a circle, like {@link Units#nearby(Team, float, float, float, Cons)}. */
+    public void nearby(Team team, float x, float y, float radius, Cons<Unit> cons){
+        nearby(team, x - radius, y - radius, radius * 2f, radius * 2f, unit -> {
+            if(unit.within(x, y, radius + unit.hitSize/2f)){
+                cons.get(unit);
+            }
+        });
+    }
+
+    /** Iterates over all units that are enemies of this team, like {@link Units#nearbyEnemies(Team, float, float, float, float, Cons)}. */
+    public void nearbyEnemies(Team team, float x, float y, float width, float height, Cons<Unit> cons){
+        Seq<TeamData> data = state.teams.present;
+        for(int i = 0; i < data.size; i++){
+            if(data.items[i].team != team){
+                nearby(data.items[i].team, x, y, width, height, cons);
+            }
+        }
+    }
+
+    /** @return the fraction of searches answered from the cache. */
+    public float hitRate(){
+        return hits + misses == 0 ? 0f : (float)hits / (hits + misses);
+    }
+
+    public void resetStats(){
+        hits = misses = 0;
+    }
+
+    public void clear(){
+        for(Seq<Unit> group : groups.values()){
+            group.clear();
+            pool.add(group);
+        }
+        groups.clear();
+    }
+}
@@ -273,7 +273,7 @@ public class Units{
         cdist = 0f;
         cpriority = -99999f;
 
-        nearbyEnemies(team, x - range, y - range, range*2f, range*2f, e -> {
+        unitQueries.nearbyEnemies(team, x - range, y - range, range*2f, range*2f, e -> {
             if(e.dead() || !predicate.get(e) || e.team == Team.derelict || !e.targetable(team) || e.inFogTo(team)) return;
 
             float dst2 = e.dst2(x, y) - (e.hitSize * e.hitSize);
@@ -295,7 +295,7 @@ public class Units{
         cdist = 0f;
         cpriority = -99999f;
 
-        nearbyEnemies(team, x - range, y - range, range*2f, range*2f, e -> {
+        unitQueries.nearbyEnemies(team, x - range, y - range, range*2f, range*2f, e -> {
             if(e.dead() || !predicate.get(e) || e.team == Team.derelict || !e.within(x, y, range + e.hitSize/2f) || !e.targetable(team) || e.inFogTo(team)) return;
 
             float cost = sort.cost(e, x, y);
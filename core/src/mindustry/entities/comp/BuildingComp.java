@@ -592,9 +592,39 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
             remove();
             sleeping = true;
             sleepingEntities++;
+
+            if(block.wakeOn.contains(WakeEvent.timer)){
+                dormancy.schedule(self());
+            }
+            block.sleepingBuilds++;
         }
     }
 
+    public boolean isSleeping(){
+        return sleeping;
+    }
+
+    /**
+     * @return whether this building has nothing to do until one of the {@link Block#wakeOn} events of its block.
+     * Only called if that set isn't empty; buildings that stay dormant for a second are put to sleep.
+     */
+    public boolean dormant(){
+        return false;
+    }
+
+    /** Wakes this building up if its block declared this event in {@link Block#wakeOn}. */
+    public void wake(WakeEvent event){
+        if(block.wakeOn.contains(event)){
+            noSleep();
+        }
+    }
+
+    /** Stops updating this entity right away, instead of waiting for the sleep timer. {@link #noSleep()} wakes it up. */
+    public void sleepNow(){
+        sleepTime = timeToSleep;
+        sleep();
+    }
+
     /** Call when this entity is updating. This wakes it up. */
     public void noSleep(){
         sleepTime = 0f;
@@ -602,6 +632,16 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
             add();
             sleeping = false;
             sleepingEntities--;
+            block.sleepingBuilds--;
+        }
+    }
+
+    /** Called when this building is taken off its tile. Sleeping buildings aren't added, so remove() skips them. */
+    public void clearSleep(){
+        if(sleeping){
+            sleeping = false;
+            sleepingEntities--;
+            block.sleepingBuilds--;
         }
     }
 
@@ -791,6 +831,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
     public void handleItem(Building source, Item item){
         items.add(item, 1);
+        wake(WakeEvent.itemReceived);
     }
 
     public boolean acceptItem(Building source, Item item){
@@ -803,6 +844,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
     public void handleLiquid(Building source, Liquid liquid, float amount){
         liquids.add(liquid, amount);
+        wake(WakeEvent.liquidReceived);
     }
 
     //TODO entire liquid system is awful
@@ -1667,6 +1709,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
         if(was) indexer.removeIndex(tile);
 
         this.team = next;
+        noSleep();
 
         if(was){
             indexer.addIndex(tile);
@@ -1970,6 +2013,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     public void control(LAccess type, double p1, double p2, double p3, double p4){
         if(type == LAccess.enabled){
             enabled = !Mathf.zero((float)p1);
+            noSleep();
         }
     }
 
@@ -2033,6 +2077,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
             //decreasing amount is always allowed
             if(amount < liquids.get(liquid) || (acceptLiquid(self(), liquid) && (liquids.current() == liquid || liquids.currentAmount() <= 0.1f || block.consumesLiquid(liquid)))){
                 liquids.set(liquid, amount);
+                wake(WakeEvent.liquidReceived);
             }
         }
     }
@@ -2116,6 +2161,15 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
         if(enabled || !block.noUpdateDisabled){
             updateTile();
         }
+
+        //clients get building state from snapshots, which don't wake anything
+        if(block.wakeOn.size > 0 && !net.client()){
+            if(dormant()){
+                sleep();
+            }else{
+                sleepTime = 0f;
+            }
+        }
     }
 
     @Override
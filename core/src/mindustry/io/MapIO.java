@@ -47,7 +47,7 @@ public class MapIO{
 
     public static void writeMap(Fi file, Map map) throws IOException{
         try{
-            SaveIO.write(file, map.tags);
+            SaveIO.write(file, map.tags, SaveIO.getSaveWriter(SaveIO.mapVersion));
         }catch(Exception e){
             throw new IOException(e);
         }
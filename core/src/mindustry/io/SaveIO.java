@@ -11,6 +11,8 @@ import mindustry.io.versions.*;
 import mindustry.world.*;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.*;
 import java.util.*;
 import java.util.zip.*;
 
@@ -20,7 +22,13 @@ public class SaveIO{
     /** Save format header. */
     public static final byte[] header = {'M', 'S', 'A', 'V'};
     public static final IntMap<SaveVersion> versions = new IntMap<>();
-    public static final Seq<SaveVersion> versionArray = Seq.with(new Save1(), new Save2(), new Save3(), new Save4(), new Save5(), new Save6(), new Save7());
+    /** Version maps are written with. Maps are shared with other clients, so they stay on the single-stream format. */
+    public static final int mapVersion = 7;
+    /** Version saves are written with by default, readable by every other build of the game. */
+    public static final int defaultVersion = 7;
+    /** Saves with independently compressed regions; only written when the "chunkedsaves" setting is enabled. */
+    public static final Save8 chunkedVersion = new Save8();
+    public static final Seq<SaveVersion> versionArray = Seq.with(new Save1(), new Save2(), new Save3(), new Save4(), new Save5(), new Save6(), new Save7(), chunkedVersion);
 
     static{
         for(SaveVersion version : versionArray){
@@ -29,7 +37,7 @@ public class SaveIO{
     }
 
     public static SaveVersion getSaveWriter(){
-        return versionArray.peek();
+        return versions.get(defaultVersion);
     }
 
     public static SaveVersion getSaveWriter(int version){
@@ -107,7 +115,21 @@ public class SaveIO{
     }
 
     public static void write(Fi file, StringMap tags){
-        write(new FastDeflaterOutputStream(file.write(false, bufferSize)), tags);
+        write(file, tags, getVersion());
+    }
+
+    public static void write(Fi file, StringMap tags, SaveVersion ver){
+        if(ver.compressesRegions()){
+            //only store data in the outer stream; compressing it again would just cost time
+            Deflater deflater = new Deflater(Deflater.NO_COMPRESSION);
+            try{
+                write(new DeflaterOutputStream(file.write(false, bufferSize), deflater, bufferSize), tags, ver);
+            }finally{
+                deflater.end();
+            }
+        }else{
+            write(new FastDeflaterOutputStream(file.write(false, bufferSize)), tags, ver);
+        }
     }
 
     public static void write(Fi file){
@@ -115,9 +137,12 @@ public class SaveIO{
     }
 
     public static void write(OutputStream os, StringMap tags){
+        write(os, tags, getVersion());
+    }
+
+    public static void write(OutputStream os, StringMap tags, SaveVersion ver){
         try(DataOutputStream stream = new DataOutputStream(os)){
             Events.fire(new SaveWriteEvent());
-            SaveVersion ver = getVersion();
 
             stream.write(header);
             stream.writeInt(ver.version);
@@ -131,6 +156,20 @@ public class SaveIO{
         }
     }
 
+    /**
+     * Sync. Quickly serializes the current state into memory, without compressing or writing it.
+     * The returned snapshot can be saved from any thread.
+     */
+    public static SaveSnapshot snapshot(){
+        try{
+            Events.fire(new SaveWriteEvent());
+            SaveVersion ver = getVersion();
+            return new SaveSnapshot(ver, ver.capture(new StringMap()));
+        }catch(Throwable e){
+            throw new RuntimeException(e);
+        }
+    }
+
     public static void load(String saveName) throws SaveException{
         load(saveDirectory.child(saveName + ".msav"));
     }
@@ -174,8 +213,9 @@ public class SaveIO{
         }
     }
 
+    /** @return the version saves are written with. */
     public static SaveVersion getVersion(){
-        return versionArray.peek();
+        return Core.settings != null && Core.settings.getBool("chunkedsaves", false) ? chunkedVersion : getSaveWriter();
     }
 
     public static void readHeader(DataInput input) throws IOException{
@@ -186,6 +226,45 @@ public class SaveIO{
         }
     }
 
+    /** Serialized regions of a save, captured by {@link #snapshot()}. */
+    public static class SaveSnapshot{
+        public final SaveVersion version;
+        public final Seq<byte[]> regions;
+
+        public SaveSnapshot(SaveVersion version, Seq<byte[]> regions){
+            this.version = version;
+            this.regions = regions;
+        }
+
+        /** Compresses and writes this snapshot to a temporary file, which then atomically replaces the target. Can be called from any thread. */
+        public void save(Fi file){
+            Fi temp = file.sibling("tmp_" + file.name());
+            Deflater deflater = new Deflater(version.compressesRegions() ? Deflater.NO_COMPRESSION : Deflater.BEST_SPEED);
+
+            try(DataOutputStream stream = new DataOutputStream(new DeflaterOutputStream(temp.write(false, bufferSize), deflater, bufferSize))){
+                stream.write(header);
+                stream.writeInt(version.version);
+                version.writeCaptured(stream, regions);
+            }catch(Throwable e){
+                temp.delete();
+                throw new RuntimeException(e);
+            }finally{
+                deflater.end();
+            }
+
+            try{
+                try{
+                    Files.move(temp.file().toPath(), file.file().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }catch(AtomicMoveNotSupportedException e){
+                    Files.move(temp.file().toPath(), file.file().toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }catch(IOException e){
+                temp.delete();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     public static class SaveException extends RuntimeException{
         public SaveException(Throwable throwable){
             super(throwable);
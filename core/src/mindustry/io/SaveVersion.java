@@ -33,6 +33,8 @@ public abstract class SaveVersion extends SaveFileReader{
     //stores entity mappings for use after readEntityMapping
     //if null, fall back to EntityMapping's values
     protected @Nullable Prov[] entityMapping;
+    //regions collected by capture() instead of being written out
+    protected @Nullable Seq<byte[]> captured;
 
     /**
      * Registers a custom save chunk reader/writer by name. This is mostly used for mods that need to save extra data.
@@ -48,7 +50,10 @@ public abstract class SaveVersion extends SaveFileReader{
 
     public SaveMeta getMeta(DataInput stream) throws IOException{
         stream.readInt(); //length of data, doesn't matter here
-        StringMap map = readStringMap(stream);
+        return getMeta(readStringMap(stream));
+    }
+
+    protected SaveMeta getMeta(StringMap map){
         return new SaveMeta(
             map.getInt("version"),
             map.getLong("saved"),
@@ -61,6 +66,11 @@ public abstract class SaveVersion extends SaveFileReader{
         );
     }
 
+    /** Whether this version compresses its regions itself, in which case the save stream around them does not need to. */
+    public boolean compressesRegions(){
+        return false;
+    }
+
     @Override
     public final void write(DataOutputStream stream) throws IOException{
         write(stream, new StringMap());
@@ -88,6 +98,44 @@ public abstract class SaveVersion extends SaveFileReader{
         region("custom", stream, s -> writeCustomChunks(s, false));
     }
 
+    /**
+     * Sync. Serializes every region into memory without compressing or writing anything,
+     * so that {@link #writeCaptured(DataOutput, Seq)} can finish the save on another thread.
+     */
+    public Seq<byte[]> capture(StringMap extraTags) throws IOException{
+        captured = new Seq<>();
+        try{
+            write(null, extraTags);
+            return captured;
+        }finally{
+            captured = null;
+        }
+    }
+
+    /** Writes regions returned by {@link #capture(StringMap)}. Does not touch any game state, so it is safe to call from any thread. */
+    public void writeCaptured(DataOutput stream, Seq<byte[]> regions) throws IOException{
+        for(byte[] region : regions){
+            stream.writeInt(region.length);
+            stream.write(region);
+        }
+    }
+
+    @Override
+    public void region(String name, DataOutput stream, IORunner<DataOutput> cons) throws IOException{
+        if(captured == null){
+            super.region(name, stream, cons);
+            return;
+        }
+
+        try{
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            cons.accept(new DataOutputStream(out));
+            captured.add(out.toByteArray());
+        }catch(Throwable e){
+            throw new IOException("Error writing region \"" + name + "\".", e);
+        }
+    }
+
     public void writeCustomChunks(DataOutput stream, boolean net) throws IOException{
         var chunks = customChunks.orderedKeys().select(s -> customChunks.get(s).shouldWrite() && (!net || customChunks.get(s).writeNet()));
         stream.writeInt(chunks.size);
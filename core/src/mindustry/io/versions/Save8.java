@@ -0,0 +1,178 @@
+package mindustry.io.versions;
+
+import arc.struct.*;
+import arc.util.io.*;
+import mindustry.io.*;
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Each region is split into blocks that are deflated independently and in parallel, and inflated in parallel on load.
+ * The outer save stream only stores the result.
+ * Region layout: total length, uncompressed length, block count, then the uncompressed and compressed length and data of each block.
+ * Other builds of the game can't read this format, so it is only written when enabled, see {@link SaveIO#getVersion()}.
+ */
+public class Save8 extends SaveVersion{
+    /** Version ID in the save header; far outside the range of upstream versions, so that the two never collide. */
+    public static final int id = 10_008;
+    /** Uncompressed size of each independently compressed block. */
+    static final int blockSize = 512 * 1024;
+
+    public Save8(){
+        super(id);
+    }
+
+    @Override
+    public boolean compressesRegions(){
+        return true;
+    }
+
+    @Override
+    public SaveMeta getMeta(DataInput stream) throws IOException{
+        StringMap[] map = {null};
+        region("meta", stream, null, in -> map[0] = readStringMap(in));
+        return getMeta(map[0]);
+    }
+
+    @Override
+    public void region(String name, DataOutput stream, IORunner<DataOutput> cons) throws IOException{
+        if(captured != null){
+            super.region(name, stream, cons);
+            return;
+        }
+
+        try{
+            //not shared, so that saves written on different threads don't interfere
+            ReusableByteOutStream output = new ReusableByteOutStream();
+            cons.accept(new DataOutputStream(output));
+            writeRegion(stream, output.getBytes(), output.size());
+        }catch(Throwable e){
+            throw new IOException("Error writing region \"" + name + "\".", e);
+        }
+    }
+
+    @Override
+    public void writeCaptured(DataOutput stream, Seq<byte[]> regions) throws IOException{
+        for(byte[] region : regions){
+            writeRegion(stream, region, region.length);
+        }
+    }
+
+    void writeRegion(DataOutput stream, byte[] bytes, int length) throws IOException{
+        int blocks = Math.max((length + blockSize - 1) / blockSize, 1);
+
+        Future<byte[]>[] futures = new Future[blocks];
+        for(int i = 0; i < blocks; i++){
+            int offset = i * blockSize, size = Math.min(blockSize, length - offset);
+            futures[i] = mainExecutor.submit(() -> deflate(bytes, offset, size));
+        }
+
+        byte[][] compressed = new byte[blocks][];
+        int total = 8;
+        for(int i = 0; i < blocks; i++){
+            try{
+                compressed[i] = futures[i].get();
+            }catch(InterruptedException | ExecutionException e){
+                throw new IOException(e);
+            }
+            total += 8 + compressed[i].length;
+        }
+
+        stream.writeInt(total);
+        stream.writeInt(length);
+        stream.writeInt(blocks);
+        for(int i = 0; i < blocks; i++){
+            stream.writeInt(Math.min(blockSize, length - i * blockSize));
+            stream.writeInt(compressed[i].length);
+            stream.write(compressed[i]);
+        }
+    }
+
+    @Override
+    public void region(String name, DataInput stream, CounterInputStream counter, IORunner<DataInput> cons) throws IOException{
+        byte[] data;
+        try{
+            //total region length; only needed for skipping
+            stream.readInt();
+            int length = stream.readInt(), blocks = stream.readInt();
+
+            data = new byte[length];
+            Future<?>[] futures = new Future[blocks];
+            int offset = 0;
+
+            for(int i = 0; i < blocks; i++){
+                int size = stream.readInt();
+                byte[] compressed = new byte[stream.readInt()];
+                stream.readFully(compressed);
+
+                int start = offset;
+                futures[i] = mainExecutor.submit(() -> {
+                    inflate(compressed, data, start, size);
+                    return null;
+                });
+                offset += size;
+            }
+
+            if(offset != length){
+                throw new IOException("Block lengths do not add up: " + offset + " != " + length);
+            }
+
+            for(var future : futures){
+                future.get();
+            }
+        }catch(Throwable e){
+            throw new IOException("Error reading region \"" + name + "\".", e);
+        }
+
+        ByteArrayInputStream in = new ByteArrayInputStream(data);
+        try{
+            cons.accept(new DataInputStream(in));
+        }catch(Throwable e){
+            throw new IOException("Error reading region \"" + name + "\".", e);
+        }
+
+        if(in.available() != 0){
+            throw new IOException("Error reading region \"" + name + "\": read length mismatch. Expected: " + data.length + "; Actual: " + (data.length - in.available()));
+        }
+    }
+
+    static byte[] deflate(byte[] bytes, int offset, int length){
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(length / 2, 64));
+        byte[] buffer = new byte[8192];
+
+        deflater.setInput(bytes, offset, length);
+        deflater.finish();
+        while(!deflater.finished()){
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        return out.toByteArray();
+    }
+
+    static void inflate(byte[] compressed, byte[] out, int offset, int length) throws DataFormatException{
+        Inflater inflater = new Inflater(true);
+        try{
+            inflater.setInput(compressed);
+            int read = 0;
+            while(read < length && !inflater.finished()){
+                int result = inflater.inflate(out, offset + read, length - read);
+                if(result == 0 && (inflater.needsInput() || inflater.needsDictionary())){
+                    break;
+                }
+                read += result;
+            }
+
+            if(read != length){
+                throw new DataFormatException("Truncated block: expected " + length + " bytes, got " + read);
+            }
+        }finally{
+            inflater.end();
+        }
+    }
+}
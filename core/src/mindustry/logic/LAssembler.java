@@ -15,10 +15,14 @@ public class LAssembler{
     private static final int invalidNum = Integer.MIN_VALUE;
 
     private int lastVar;
+    /** Whether any statement refers to @counter, which makes every instruction a possible jump target. */
+    private boolean counterReferenced;
     /** Maps names to variable IDs. */
     public ObjectMap<String, BVar> vars = new ObjectMap<>();
     /** All instructions to be executed. */
     public LInstruction[] instructions;
+    /** Set by {@link #optimize()}: instructions that always continue to the next one, which can be run together with it. */
+    public @Nullable boolean[] fusable;
 
     public LAssembler(){
         //instruction counter
@@ -66,6 +70,8 @@ public class LAssembler{
 
         symbol = symbol.trim();
 
+        if(symbol.equals("@counter")) counterReferenced = true;
+
         //string case
         if(!symbol.isEmpty() && symbol.charAt(0) == '\"' && symbol.charAt(symbol.length() - 1) == '\"'){
             return putConst("___" + symbol, symbol.substring(1, symbol.length() - 1).replace("\\n", "\n")).id;
@@ -84,6 +90,109 @@ public class LAssembler{
         }
     }
 
+    /**
+     * Optimizes the instructions without moving any instruction that can run, so jumps and @counter stay valid,
+     * and every instruction still takes exactly one step.
+     * Operations on two number literals are folded into a set, and jumps comparing two number literals into
+     * an unconditional jump or a no-op. If no statement refers to @counter, instructions that can't be reached from
+     * the start or the current counter are replaced with no-ops, and unreachable instructions at the end are dropped.
+     * Finally, instructions that can't jump are marked as {@link #fusable}.
+     */
+    public void optimize(){
+        int length = instructions.length;
+
+        //values of the hidden constants created for number literals, by ID
+        double[] literals = new double[lastVar];
+        boolean[] isLiteral = new boolean[lastVar];
+        for(var entry : vars){
+            if(entry.value.constant && entry.key.startsWith("___") && entry.value.value instanceof Number n){
+                double value = n.doubleValue();
+                isLiteral[entry.value.id] = true;
+                literals[entry.value.id] = Double.isNaN(value) || Double.isInfinite(value) ? 0 : value;
+            }
+        }
+
+        for(int i = 0; i < length; i++){
+            if(instructions[i] instanceof OpI op){
+                //rand is the only operation that isn't a pure function of its arguments
+                if(op.op == LogicOp.rand || op.op == LogicOp.strictEqual || !literal(isLiteral, op.a) || (!op.op.unary && !literal(isLiteral, op.b))) continue;
+
+                double result = op.op.unary ? op.op.function1.get(literals[op.a]) : op.op.function2.get(literals[op.a], literals[op.b]);
+
+                //setting an invalid number makes the variable null, which a set can't express
+                if(!Double.isNaN(result) && !Double.isInfinite(result)){
+                    instructions[i] = new SetI(putConst("___" + result, result).id, op.dest);
+                }
+            }else if(instructions[i] instanceof JumpI jump){
+                if(jump.address == -1 || jump.op == ConditionOp.always || jump.op == ConditionOp.strictEqual || !literal(isLiteral, jump.value) || !literal(isLiteral, jump.compare)) continue;
+
+                if(jump.op.function.get(literals[jump.value], literals[jump.compare])){
+                    jump.op = ConditionOp.always;
+                }else{
+                    jump.address = -1;
+                }
+            }
+        }
+
+        if(!counterReferenced){
+            //the counter may have been carried over from a previous version of the program
+            Object start = vars.get("@counter").value;
+            boolean[] reachable = new boolean[length];
+            IntSeq stack = new IntSeq();
+            stack.add(0);
+            if(start instanceof Number n && n.doubleValue() >= 0 && n.doubleValue() < length){
+                stack.add(n.intValue());
+            }
+
+            while(!stack.isEmpty()){
+                int i = stack.pop();
+                //running past the end or jumping outside the program restarts it
+                if(i < 0 || i >= length) i = 0;
+                if(reachable[i]) continue;
+                reachable[i] = true;
+
+                if(instructions[i] instanceof JumpI jump && jump.address != -1){
+                    stack.add(jump.address);
+                    if(jump.op != ConditionOp.always) stack.add(i + 1);
+                }else if(instructions[i] instanceof EndI){
+                    stack.add(0);
+                }else{
+                    stack.add(i + 1);
+                }
+            }
+
+            int last = 0;
+            for(int i = 0; i < length; i++){
+                if(reachable[i]){
+                    last = i;
+                }else{
+                    instructions[i] = new NoopI();
+                }
+            }
+
+            //nothing after the last reachable instruction can run, and ending the program sets the counter past it either way
+            if(last < length - 1){
+                LInstruction[] trimmed = new LInstruction[last + 1];
+                System.arraycopy(instructions, 0, trimmed, 0, trimmed.length);
+                instructions = trimmed;
+                length = trimmed.length;
+            }
+        }
+
+        fusable = new boolean[length];
+        for(int i = 0; i < length - 1; i++){
+            LInstruction inst = instructions[i];
+            fusable[i] =
+                inst instanceof SetI set ? set.to != LExecutor.varCounter :
+                inst instanceof OpI op ? op.dest != LExecutor.varCounter :
+                inst instanceof SenseI sense && sense.to != LExecutor.varCounter;
+        }
+    }
+
+    private static boolean literal(boolean[] isLiteral, int id){
+        return id >= 0 && id < isLiteral.length && isLiteral[id];
+    }
+
     double parseDouble(String symbol){
         //parse hex/binary syntax
         if(symbol.startsWith("0b")) return Strings.parseLong(symbol, 2, 2, symbol.length(), invalidNum);
@@ -0,0 +1,231 @@
+package mindustry.logic;
+
+import arc.util.*;
+import mindustry.logic.LExecutor.*;
+
+/**
+ * Compiles an executor's instructions after it is loaded: variable indices are resolved to the {@link Var} objects
+ * they refer to, and arithmetic, comparisons and jumps are replaced with specialized instructions that switch on the
+ * operation instead of calling through {@link LogicOp} lambdas.
+ * Every compiled instruction replaces exactly one interpreted instruction and behaves identically,
+ * so instruction counts, @counter and timing are unchanged. Unsupported instructions are left to the interpreter.
+ */
+public class LCompiler{
+
+    /** @return a copy of the executor's instructions, with supported ones replaced by compiled versions. */
+    public static LInstruction[] compile(LExecutor exec, LInstruction[] instructions){
+        LInstruction[] out = new LInstruction[instructions.length];
+        for(int i = 0; i < instructions.length; i++){
+            out[i] = compile(exec, instructions[i]);
+        }
+        return out;
+    }
+
+    static LInstruction compile(LExecutor exec, LInstruction inst){
+        if(inst instanceof SetI i){
+            Var to = exec.var(i.to);
+            return to.constant ? new NoopI() : new SetC(exec.var(i.from), to);
+        }else if(inst instanceof OpI i){
+            if(i.op == LogicOp.strictEqual){
+                return new StrictEqualC(exec.var(i.a), exec.var(i.b), exec.var(i.dest));
+            }else if(i.op.unary){
+                return new UnaryOpC(i.op, exec.var(i.a), exec.var(i.dest));
+            }
+            return new OpC(i.op, exec.var(i.a), exec.var(i.b), exec.var(i.dest));
+        }else if(inst instanceof JumpI i){
+            if(i.address == -1){
+                return new NoopI();
+            }else if(i.op == ConditionOp.always){
+                return new JumpAlwaysC(exec.counter, i.address);
+            }
+            return new JumpC(i.op, exec.var(i.value), exec.var(i.compare), exec.counter, i.address);
+        }
+        return inst;
+    }
+
+    //region variable access, identical to the LExecutor versions
+
+    static double num(Var v){
+        return v.isobj ? v.objval != null ? 1 : 0 : invalid(v.numval) ? 0 : v.numval;
+    }
+
+    static void setnum(Var v, double value){
+        if(v.constant) return;
+        if(invalid(value)){
+            v.objval = null;
+            v.isobj = true;
+        }else{
+            v.numval = value;
+            v.objval = null;
+            v.isobj = false;
+        }
+    }
+
+    static boolean invalid(double d){
+        return Double.isNaN(d) || Double.isInfinite(d);
+    }
+
+    //endregion
+    //region compiled instructions
+
+    public static class SetC implements LInstruction{
+        final Var from, to;
+
+        SetC(Var from, Var to){
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            if(from.isobj){
+                to.objval = from.objval;
+                to.isobj = true;
+            }else{
+                to.numval = invalid(from.numval) ? 0 : from.numval;
+                to.isobj = false;
+            }
+        }
+    }
+
+    public static class OpC implements LInstruction{
+        final LogicOp op;
+        final Var a, b, dest;
+
+        OpC(LogicOp op, Var a, Var b, Var dest){
+            this.op = op;
+            this.a = a;
+            this.b = b;
+            this.dest = dest;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            if(op.objFunction2 != null && a.isobj && b.isobj){
+                setnum(dest, op.objFunction2.get(a.objval, b.objval));
+                return;
+            }
+
+            double x = num(a), y = num(b);
+            setnum(dest, switch(op){
+                case add -> x + y;
+                case sub -> x - y;
+                case mul -> x * y;
+                case div -> x / y;
+                case idiv -> Math.floor(x / y);
+                case mod -> x % y;
+                case equal -> Math.abs(x - y) < 0.000001 ? 1 : 0;
+                case notEqual -> Math.abs(x - y) < 0.000001 ? 0 : 1;
+                case land -> x != 0 && y != 0 ? 1 : 0;
+                case lessThan -> x < y ? 1 : 0;
+                case lessThanEq -> x <= y ? 1 : 0;
+                case greaterThan -> x > y ? 1 : 0;
+                case greaterThanEq -> x >= y ? 1 : 0;
+                case shl -> (long)x << (long)y;
+                case shr -> (long)x >> (long)y;
+                case or -> (long)x | (long)y;
+                case and -> (long)x & (long)y;
+                case xor -> (long)x ^ (long)y;
+                case max -> Math.max(x, y);
+                case min -> Math.min(x, y);
+                default -> op.function2.get(x, y);
+            });
+        }
+    }
+
+    public static class UnaryOpC implements LInstruction{
+        final LogicOp op;
+        final Var a, dest;
+
+        UnaryOpC(LogicOp op, Var a, Var dest){
+            this.op = op;
+            this.a = a;
+            this.dest = dest;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            double x = num(a);
+            setnum(dest, switch(op){
+                case not -> ~(long)x;
+                case abs -> Math.abs(x);
+                case floor -> Math.floor(x);
+                case ceil -> Math.ceil(x);
+                case sqrt -> Math.sqrt(x);
+                default -> op.function1.get(x);
+            });
+        }
+    }
+
+    public static class StrictEqualC implements LInstruction{
+        final Var a, b, dest;
+
+        StrictEqualC(Var a, Var b, Var dest){
+            this.a = a;
+            this.b = b;
+            this.dest = dest;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            setnum(dest, a.isobj == b.isobj && ((a.isobj && Structs.eq(a.objval, b.objval)) || (!a.isobj && a.numval == b.numval)) ? 1 : 0);
+        }
+    }
+
+    public static class JumpC implements LInstruction{
+        final ConditionOp op;
+        final Var a, b, counter;
+        final int address;
+
+        JumpC(ConditionOp op, Var a, Var b, Var counter, int address){
+            this.op = op;
+            this.a = a;
+            this.b = b;
+            this.counter = counter;
+            this.address = address;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            boolean cmp;
+
+            if(op == ConditionOp.strictEqual){
+                cmp = a.isobj == b.isobj && ((a.isobj && a.objval == b.objval) || (!a.isobj && a.numval == b.numval));
+            }else if(op.objFunction != null && a.isobj && b.isobj){
+                cmp = op.objFunction.get(a.objval, b.objval);
+            }else{
+                double x = num(a), y = num(b);
+                cmp = switch(op){
+                    case equal -> Math.abs(x - y) < 0.000001;
+                    case notEqual -> Math.abs(x - y) >= 0.000001;
+                    case lessThan -> x < y;
+                    case lessThanEq -> x <= y;
+                    case greaterThan -> x > y;
+                    case greaterThanEq -> x >= y;
+                    default -> op.function.get(x, y);
+                };
+            }
+
+            if(cmp){
+                counter.numval = address;
+            }
+        }
+    }
+
+    public static class JumpAlwaysC implements LInstruction{
+        final Var counter;
+        final int address;
+
+        JumpAlwaysC(Var counter, int address){
+            this.counter = counter;
+            this.address = address;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            counter.numval = address;
+        }
+    }
+
+    //endregion
+}
@@ -18,6 +18,7 @@ import mindustry.game.*;
 import mindustry.game.Teams.*;
 import mindustry.gen.*;
 import mindustry.logic.LogicFx.*;
+import mindustry.net.Administration.*;
 import mindustry.type.*;
 import mindustry.world.*;
 import mindustry.world.blocks.environment.*;
@@ -47,6 +48,10 @@ public class LExecutor{
     maxTextBuffer = 400;
 
     public LInstruction[] instructions = {};
+    /** Superinstructions, by the index of their first instruction. Only used by {@link #run(int)}. */
+    public LInstruction[] fused = {};
+    /** Type of the instruction each instruction was assembled as, before it was optimized or compiled. */
+    public Class<?>[] sources = {};
     public Var[] vars = {};
     public Var counter;
     public int[] binds;
@@ -87,8 +92,41 @@ public class LExecutor{
         }
     }
 
+    /**
+     * Runs a number of instructions, exactly like calling {@link #runOnce()} that many times.
+     * Pairs of instructions that have a superinstruction are dispatched once, but still count as two.
+     */
+    public void run(int amount){
+        while(amount > 0){
+            //reset to start
+            if(counter.numval >= instructions.length || counter.numval < 0){
+                counter.numval = 0;
+            }
+
+            if(counter.numval >= instructions.length) return;
+
+            int index = (int)(counter.numval++);
+            if(amount >= 2 && fused[index] != null){
+                fused[index].run(this);
+                amount -= 2;
+            }else{
+                instructions[index].run(this);
+                amount --;
+            }
+        }
+    }
+
     /** Loads with a specified assembler. Resets all variables. */
     public void load(LAssembler builder){
+        sources = new Class<?>[builder.instructions.length];
+        for(int i = 0; i < sources.length; i++){
+            sources[i] = builder.instructions[i].getClass();
+        }
+
+        if(Config.optimizeLogic.bool()){
+            builder.optimize();
+        }
+
         vars = new Var[builder.vars.size];
         instructions = builder.instructions;
         iptIndex = -1;
@@ -112,6 +150,19 @@ public class LExecutor{
         });
 
         counter = vars[varCounter];
+
+        if(Config.compileLogic.bool()){
+            instructions = LCompiler.compile(this, instructions);
+        }
+
+        fused = new LInstruction[instructions.length];
+        if(builder.fusable != null){
+            for(int i = 0; i < instructions.length - 1; i++){
+                if(builder.fusable[i]){
+                    fused[i] = new FusedI(instructions[i], instructions[i + 1]);
+                }
+            }
+        }
     }
 
     //region utility
@@ -826,7 +877,7 @@ public class LExecutor{
         }
 
         void find(Ranged b, float range, int sortDir, Team team){
-            Units.nearby(team, b.x(), b.y(), range, u -> {
+            unitQueries.nearby(team, b.x(), b.y(), range, u -> {
                 if(!u.within(b, range) || !u.targetable(team) || b == u) return;
 
                 boolean valid =
@@ -921,6 +972,23 @@ public class LExecutor{
         public void run(LExecutor exec){}
     }
 
+    /** Runs an instruction that never jumps and the one after it, as two consecutive steps would. */
+    public static class FusedI implements LInstruction{
+        public final LInstruction first, second;
+
+        public FusedI(LInstruction first, LInstruction second){
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            first.run(exec);
+            exec.counter.numval ++;
+            second.run(exec);
+        }
+    }
+
     public static class DrawI implements LInstruction{
         public byte type;
         public int target;
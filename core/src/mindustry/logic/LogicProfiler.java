@@ -0,0 +1,202 @@
+package mindustry.logic;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.core.*;
+import mindustry.game.*;
+import mindustry.logic.LExecutor.*;
+import mindustry.net.Administration.*;
+import mindustry.world.blocks.logic.LogicBlock.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Measures how long logic processors take, and throttles the most expensive ones when a time budget is set.
+ * Each processor update is timed as a whole. One in {@link #sampleInterval} updates of a processor runs its
+ * instructions one at a time instead, and attributes their time to their instruction type.
+ * <p>
+ * When the processors of the whole game or of one team took longer than their budget in the previous update,
+ * every processor in that scope is limited to an even share of the budget in this one. Processors that need less than
+ * their share are not affected; the rest run fewer instructions and keep the remainder in their accumulator.
+ * Privileged processors, which run map scripts, are neither limited nor counted towards any budget.
+ */
+public class LogicProfiler{
+    /** Every Nth update of a processor is profiled per instruction. */
+    public static final int sampleInterval = 32;
+
+    private final Seq<ProcessorStats> processors = new Seq<>();
+    private final ObjectMap<Class<?>, InstructionStats> instructions = new ObjectMap<>();
+
+    //the processor time and count of the current and previous update, per team; the last entry is for all teams
+    private final long[] spent = new long[Team.all.length + 1], lastSpent = new long[Team.all.length + 1];
+    private final int[] active = new int[Team.all.length + 1], lastActive = new int[Team.all.length + 1];
+    private long updateId = -1;
+    private @Nullable GameState lastState;
+    private boolean profiling;
+    private long globalBudget, teamBudget;
+
+    /** @return whether processors need to go through {@link #run(LogicBuild, int)} this update. */
+    public boolean active(){
+        if(state != lastState || state.updateId != updateId){
+            nextUpdate();
+        }
+        return profiling || globalBudget > 0 || teamBudget > 0;
+    }
+
+    /**
+     * Runs a processor for up to the given amount of steps, within its budget.
+     * @return the amount of steps that were actually run.
+     */
+    public int run(LogicBuild build, int steps){
+        ProcessorStats stats = build.profile;
+        int team = build.team.id, all = spent.length - 1;
+
+        boolean budgeted = !build.block.privileged;
+
+        //limit processors that would go over their share of an exceeded budget
+        long share = Long.MAX_VALUE;
+        if(budgeted && globalBudget > 0 && lastSpent[all] > globalBudget) share = globalBudget / Math.max(lastActive[all], 1);
+        if(budgeted && teamBudget > 0 && lastSpent[team] > teamBudget) share = Math.min(share, teamBudget / Math.max(lastActive[team], 1));
+
+        if(share != Long.MAX_VALUE && stats.nanosPerStep > 0 && stats.nanosPerStep * steps > share){
+            steps = Math.max((int)(share / stats.nanosPerStep), 1);
+            stats.throttled ++;
+        }
+
+        long start = Time.nanos();
+        if(profiling && stats.updates % sampleInterval == 0){
+            sample(build.executor, steps);
+        }else{
+            build.executor.run(steps);
+        }
+        long time = Time.timeSinceNanos(start);
+
+        if(steps > 0){
+            float perStep = (float)time / steps;
+            stats.nanosPerStep = stats.nanosPerStep == 0 ? perStep : stats.nanosPerStep * 0.9f + perStep * 0.1f;
+        }
+
+        stats.updates ++;
+        stats.steps += steps;
+        stats.nanos += time;
+
+        if(budgeted){
+            spent[team] += time;
+            spent[all] += time;
+            active[team] ++;
+            active[all] ++;
+        }
+
+        if(profiling && !stats.registered){
+            stats.registered = true;
+            processors.add(stats);
+        }
+
+        return steps;
+    }
+
+    /** Runs instructions one at a time like {@link LExecutor#runOnce()}, timing each by the type it was assembled as. */
+    void sample(LExecutor exec, int steps){
+        for(int i = 0; i < steps; i++){
+            if(exec.counter.numval >= exec.instructions.length || exec.counter.numval < 0){
+                exec.counter.numval = 0;
+            }
+
+            if(exec.counter.numval < exec.instructions.length){
+                int index = (int)(exec.counter.numval++);
+                LInstruction inst = exec.instructions[index];
+                long start = Time.nanos();
+                inst.run(exec);
+                long time = Time.timeSinceNanos(start);
+
+                //compiled and optimized instructions are reported as the instruction they replace
+                Class<?> type = index < exec.sources.length ? exec.sources[index] : inst.getClass();
+                InstructionStats stats = instructions.get(type);
+                if(stats == null) instructions.put(type, stats = new InstructionStats(type.getSimpleName()));
+                stats.count ++;
+                stats.nanos += time;
+            }
+        }
+    }
+
+    void nextUpdate(){
+        lastState = state;
+        updateId = state.updateId;
+
+        System.arraycopy(spent, 0, lastSpent, 0, spent.length);
+        System.arraycopy(active, 0, lastActive, 0, active.length);
+        Arrays.fill(spent, 0);
+        Arrays.fill(active, 0);
+
+        profiling = Config.logicProfiling.bool();
+        globalBudget = Config.logicBudget.num() * 1000L;
+        teamBudget = Config.logicTeamBudget.num() * 1000L;
+    }
+
+    /** @return profiled processors that still exist, most expensive first. */
+    public Seq<ProcessorStats> processors(){
+        processors.removeAll(p -> {
+            if(!p.build.isValid()){
+                p.registered = false;
+                return true;
+            }
+            return false;
+        });
+        return processors.copy().sort(p -> -p.nanos);
+    }
+
+    /** @return profiled instruction types, most expensive first. */
+    public Seq<InstructionStats> instructions(){
+        return instructions.values().toSeq().sort(i -> -i.nanos);
+    }
+
+    public void reset(){
+        for(ProcessorStats stats : processors){
+            stats.reset();
+        }
+        instructions.clear();
+    }
+
+    public static class ProcessorStats{
+        public final LogicBuild build;
+        /** Updates, instructions run, and nanoseconds spent since the last reset. */
+        public long updates, steps, nanos;
+        /** Updates in which this processor ran fewer instructions because of a budget. */
+        public long throttled;
+        /** Running average of the time per instruction. */
+        public float nanosPerStep;
+        boolean registered;
+
+        public ProcessorStats(LogicBuild build){
+            this.build = build;
+        }
+
+        public float microsPerUpdate(){
+            return updates == 0 ? 0f : nanos / 1000f / updates;
+        }
+
+        public float stepsPerUpdate(){
+            return updates == 0 ? 0f : (float)steps / updates;
+        }
+
+        public void reset(){
+            updates = steps = nanos = throttled = 0;
+        }
+    }
+
+    public static class InstructionStats{
+        public final String name;
+        /** Sampled runs of this instruction type, and the nanoseconds they took. */
+        public long count, nanos;
+
+        public InstructionStats(String name){
+            this.name = name;
+        }
+
+        public float nanosPerRun(){
+            return count == 0 ? 0f : (float)nanos / count;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import arc.util.pooling.Pool.*;
 import arc.util.pooling.*;
 import mindustry.*;
 import mindustry.gen.*;
+import mindustry.logic.*;
 import mindustry.type.*;
 import mindustry.world.*;
 import mindustry.world.blocks.payloads.*;
@@ -450,6 +451,20 @@ public class Administration{
         }
     }
 
+    /** @return logic processors recorded while {@link Config#logicProfiling} is on, most expensive first. */
+    public Seq<LogicProfiler.ProcessorStats> getLogicProfile(){
+        return logicProfiler.processors();
+    }
+
+    /** @return sampled instruction types recorded while {@link Config#logicProfiling} is on, most expensive first. */
+    public Seq<LogicProfiler.InstructionStats> getLogicInstructionProfile(){
+        return logicProfiler.instructions();
+    }
+
+    public void resetLogicProfile(){
+        logicProfiler.reset();
+    }
+
     public void save(){
         modified = true;
     }
@@ -513,6 +528,17 @@ public class Administration{
         autosaveSpacing = new Config("autosaveSpacing", "Spacing between autosaves in seconds.", 60 * 5),
         debug = new Config("debug", "Enable debug logging.", false, () -> Log.level = debug() ? LogLevel.debug : LogLevel.info),
         snapshotInterval = new Config("snapshotInterval", "Client entity snapshot interval in ms.", 200),
+        syncRadius = new Config("syncRadius", "Units and bullets further than this many tiles from a player's view are synced at a reduced rate. 0 to disable.", 0),
+        farSyncDivisor = new Config("farSyncDivisor", "When syncRadius is enabled, far units and bullets are only synced every N snapshots. 0 to never sync them.", 5),
+        deltaSync = new Config("deltaSync", "Whether entities that have not changed since they were last sent are left out of snapshots.", false),
+        deltaSyncKeyframe = new Config("deltaSyncKeyframe", "When deltaSync is enabled, every Nth snapshot contains all entities regardless of changes.", 25),
+        incrementalBlockSync = new Config("incrementalBlockSync", "Whether block snapshots only contain buildings whose synced state changed since they were last sent.", false),
+        blockSyncRefresh = new Config("blockSyncRefresh", "When incrementalBlockSync is enabled, every building is resent at least once every N block snapshots.", 10),
+        optimizeLogic = new Config("optimizeLogic", "Whether logic programs have constant operations folded, unreachable code removed and common instruction pairs fused when loaded.", true),
+        logicProfiling = new Config("logicProfiling", "Whether the time logic processors and instruction types take is recorded. See the logicprofile command.", false),
+        logicBudget = new Config("logicBudget", "Microseconds all logic processors may take per update before the most expensive ones are throttled. 0 to disable.", 0),
+        logicTeamBudget = new Config("logicTeamBudget", "Microseconds the logic processors of one team may take per update before the most expensive ones are throttled. 0 to disable.", 0),
+        compileLogic = new Config("compileLogic", "Whether logic processors run instructions bound to their variables at load time, instead of interpreting them.", true),
         autoPause = new Config("autoPause", "Whether the game should pause when nobody is online.", false),
         roundExtraTime = new Config("roundExtraTime", "Time before loading a new map after the gameover, in seconds.", 12),
         maxLogLength = new Config("maxLogLength", "The Maximum log file size, in bytes.", 1024 * 1024 * 5);
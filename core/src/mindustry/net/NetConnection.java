@@ -25,6 +25,8 @@ public abstract class NetConnection{
     public int lastReceivedClientSnapshot = -1;
     /** Count of snapshots sent from server. */
     public int snapshotsSent;
+    /** What was last sent of each entity ID. Only used when delta sync is enabled. */
+    public IntMap<SyncState> syncStates = new IntMap<>();
     /** Timestamp of last received snapshot. */
     public long lastReceivedClientTime;
     /** Build requests that have been recently rejected. This is cleared every snapshot. */
@@ -123,4 +125,14 @@ public abstract class NetConnection{
     public abstract void send(Object object, boolean reliable);
 
     public abstract void close();
+
+    /** The sync data last sent for an entity or building. */
+    public static class SyncState{
+        /** 64-bit hash of the data; see {@link mindustry.core.NetServer#hash(byte[], int, int)}. */
+        public long hash;
+        /** How many consecutive snapshots contained this data. */
+        public int repeats;
+        /** The snapshot in which this entity was last written or skipped. */
+        public int seen;
+    }
 }
@@ -15,6 +15,7 @@ import mindustry.net.Administration.*;
 import java.io.*;
 import java.nio.*;
 import java.util.*;
+import java.util.zip.*;
 
 import static mindustry.Vars.*;
 
@@ -23,37 +24,115 @@ public class NetworkIO{
     public static void writeWorld(Player player, OutputStream os){
 
         try(DataOutputStream stream = new DataOutputStream(os)){
-            //write all researched content to rules if hosting
-            if(state.isCampaign()){
-                state.rules.researched.clear();
-                for(ContentType type : ContentType.all){
-                    for(Content c : content.getBy(type)){
-                        if(c instanceof UnlockableContent u && u.unlocked() && u.techNode != null){
-                            state.rules.researched.add(u.name);
-                        }
+            writeWorldHeader(player, stream);
+            writeWorldData(stream);
+        }catch(IOException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Writes the part of the world stream that differs between players: rules, map tags, wave state and the player itself. */
+    public static void writeWorldHeader(Player player, DataOutputStream stream) throws IOException{
+        //write all researched content to rules if hosting
+        if(state.isCampaign()){
+            state.rules.researched.clear();
+            for(ContentType type : ContentType.all){
+                for(Content c : content.getBy(type)){
+                    if(c instanceof UnlockableContent u && u.unlocked() && u.techNode != null){
+                        state.rules.researched.add(u.name);
                     }
                 }
             }
+        }
 
-            stream.writeUTF(JsonIO.write(state.rules));
-            SaveIO.getSaveWriter().writeStringMap(stream, state.map.tags);
+        stream.writeUTF(JsonIO.write(state.rules));
+        SaveIO.getSaveWriter().writeStringMap(stream, state.map.tags);
 
-            stream.writeInt(state.wave);
-            stream.writeFloat(state.wavetime);
-            stream.writeDouble(state.tick);
-            stream.writeLong(GlobalVars.rand.seed0);
-            stream.writeLong(GlobalVars.rand.seed1);
+        stream.writeInt(state.wave);
+        stream.writeFloat(state.wavetime);
+        stream.writeDouble(state.tick);
+        stream.writeLong(GlobalVars.rand.seed0);
+        stream.writeLong(GlobalVars.rand.seed1);
 
-            stream.writeInt(player.id);
-            player.write(new Writes(stream));
+        stream.writeInt(player.id);
+        player.write(new Writes(stream));
+    }
 
-            SaveIO.getSaveWriter().writeContentHeader(stream);
-            SaveIO.getSaveWriter().writeMap(stream);
-            SaveIO.getSaveWriter().writeTeamBlocks(stream);
-            SaveIO.getSaveWriter().writeCustomChunks(stream, true);
-        }catch(IOException e){
-            throw new RuntimeException(e);
+    /** Writes the part of the world stream that is the same for every player: content header, map, team blocks and custom chunks. */
+    public static void writeWorldData(DataOutputStream stream) throws IOException{
+        SaveIO.getSaveWriter().writeContentHeader(stream);
+        SaveIO.getSaveWriter().writeMap(stream);
+        SaveIO.getSaveWriter().writeTeamBlocks(stream);
+        SaveIO.getSaveWriter().writeCustomChunks(stream, true);
+    }
+
+    /** Compresses data written by {@link #writeWorldData(DataOutputStream)}, so it can be shared by several {@link #spliceWorld} calls. */
+    public static CompressedWorld compressWorldData(byte[] data, int length){
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(length / 4, 64));
+        byte[] buffer = new byte[8192];
+
+        deflater.setInput(data, 0, length);
+        deflater.finish();
+        while(!deflater.finished()){
+            out.write(buffer, 0, deflater.deflate(buffer));
         }
+        deflater.end();
+
+        Adler32 adler = new Adler32();
+        adler.update(data, 0, length);
+
+        return new CompressedWorld(out.toByteArray(), (int)adler.getValue(), length);
+    }
+
+    /**
+     * Builds a complete zlib stream, readable with a plain {@link InflaterInputStream}, out of a per-player header and shared world data.
+     * The header is compressed up to a byte-aligned sync point, after which the shared data's final deflate blocks are appended as-is.
+     */
+    public static byte[] spliceWorld(byte[] header, int headerLength, CompressedWorld world){
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(world.deflated.length + headerLength + 64);
+        byte[] buffer = new byte[8192];
+
+        //zlib header: deflate with a 32K window, default compression
+        out.write(0x78);
+        out.write(0x9C);
+
+        deflater.setInput(header, 0, headerLength);
+        int written;
+        do{
+            written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            out.write(buffer, 0, written);
+        }while(written == buffer.length);
+        deflater.end();
+
+        out.write(world.deflated, 0, world.deflated.length);
+
+        Adler32 adler = new Adler32();
+        adler.update(header, 0, headerLength);
+        int checksum = combineAdler((int)adler.getValue(), world.adler, world.length);
+
+        out.write(checksum >>> 24);
+        out.write(checksum >>> 16);
+        out.write(checksum >>> 8);
+        out.write(checksum);
+
+        return out.toByteArray();
+    }
+
+    /** @return the Adler-32 checksum of two concatenated byte sequences, given both checksums and the length of the second one. */
+    static int combineAdler(int adler1, int adler2, long length2){
+        final long base = 65521;
+        long rem = length2 % base;
+        long sum1 = adler1 & 0xffff;
+        long sum2 = (rem * sum1) % base;
+        sum1 += (adler2 & 0xffff) + base - 1;
+        sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + base - rem;
+        if(sum1 >= base) sum1 -= base;
+        if(sum1 >= base) sum1 -= base;
+        if(sum2 >= (base << 1)) sum2 -= (base << 1);
+        if(sum2 >= base) sum2 -= base;
+        return (int)(sum1 | (sum2 << 16));
     }
 
     public static void loadWorld(InputStream is){
@@ -150,4 +229,16 @@ public class NetworkIO{
         buffer.get(bytes);
         return new String(bytes, charset);
     }
+
+    /** Raw deflate blocks of shared world data, with the checksum and length of the uncompressed data. */
+    public static class CompressedWorld{
+        public final byte[] deflated;
+        public final int adler, length;
+
+        public CompressedWorld(byte[] deflated, int adler, int length){
+            this.deflated = deflated;
+            this.adler = adler;
+            this.length = length;
+        }
+    }
 }
@@ -212,6 +212,12 @@ public class Block extends UnlockableContent implements Senseable{
     public BlockGroup group = BlockGroup.none;
     /** List of block flags. Used for AI indexing. */
     public EnumSet<BlockFlag> flags = EnumSet.of();
+    /** Events that wake buildings of this block once they are dormant. Buildings only go dormant if this isn't empty; opt-in, set for vanilla crafters and drills in {@link mindustry.content.Blocks#load()}. */
+    public EnumSet<WakeEvent> wakeOn = EnumSet.of();
+    /** Ticks a dormant building sleeps before it is woken, if {@link #wakeOn} contains {@link WakeEvent#timer}. */
+    public float wakeInterval = 60f;
+    /** Buildings of this block that are currently asleep. */
+    public int sleepingBuilds;
     /** Targeting priority of this block, as seen by enemies. */
     public float priority = TargetPriority.base;
     /** How much this block affects the unit cap by.
@@ -137,6 +137,17 @@ public class Conveyor extends Block implements Autotiler{
 
         public float clogHeat = 0f;
 
+        /** The line this conveyor is updated with, if any. */
+        public @Nullable ConveyorLine line;
+        /** Whether the last update changed nothing, and couldn't until this conveyor or the one in front of it changes. */
+        public boolean settled;
+        /** Whether the last update changed anything the conveyor behind this one depends on. */
+        boolean changed;
+        /** Set when this conveyor is changed by something other than its own update. */
+        boolean dirty;
+        float lineCheck;
+        int lineIndex;
+
         @Override
         public void draw(){
             int frame = enabled && clogHeat <= 0.5f ? (int)(((Time.time * speed * 8f * timeScale * efficiency)) % 4) : 0;
@@ -209,6 +220,8 @@ public class Conveyor extends Block implements Autotiler{
         public void onProximityUpdate(){
             super.onProximityUpdate();
 
+            if(line != null) line.disband();
+
             int[] bits = buildBlending(tile, rotation, null, true);
             blendbits = bits[0];
             blendsclx = bits[1];
@@ -249,13 +262,50 @@ public class Conveyor extends Block implements Autotiler{
 
         @Override
         public void updateTile(){
+            if(line != null){
+                if(line.head == this){
+                    if(line.update()){
+                        wake();
+                    }else{
+                        sleep();
+                    }
+                }else if(line.updating){
+                    step();
+                }
+                //other members are only updated by the head of their line
+                return;
+            }
+
+            step();
+
+            //skip updates if possible
+            if(len == 0){
+                sleep();
+                return;
+            }
+
+            wake();
+
+            if(ConveyorLine.enabled && (lineCheck += Time.delta) >= ConveyorLine.formInterval){
+                lineCheck = 0f;
+                ConveyorLine.form(this);
+            }
+        }
+
+        /** Moves items along. Sets {@link #changed} and {@link #settled}. */
+        public void step(){
+            float lastMin = minitem, lastHeat = clogHeat;
+            int lastMid = mid, lastLen = len;
+            boolean altered = dirty;
+
+            dirty = false;
             minitem = 1f;
             mid = 0;
 
-            //skip updates if possible
             if(len == 0){
                 clogHeat = 0f;
-                sleep();
+                changed = altered || lastMin != minitem || lastMid != mid || lastHeat != clogHeat;
+                settled = !changed;
                 return;
             }
 
@@ -265,6 +315,7 @@ public class Conveyor extends Block implements Autotiler{
             for(int i = len - 1; i >= 0; i--){
                 float nextpos = (i == len - 1 ? 100f : ys[i + 1]) - itemSpace;
                 float maxmove = Mathf.clamp(nextpos - ys[i], 0, moved);
+                float lastY = ys[i], lastX = xs[i];
 
                 ys[i] += maxmove;
 
@@ -272,6 +323,8 @@ public class Conveyor extends Block implements Autotiler{
                 if(ys[i] > 0.5 && i > 0) mid = i - 1;
                 xs[i] = Mathf.approach(xs[i], 0, moved*2);
 
+                if(ys[i] != lastY || xs[i] != lastX) altered = true;
+
                 if(ys[i] >= 1f && pass(ids[i])){
                     //align X position if passing forwards
                     if(aligned){
@@ -291,7 +344,40 @@ public class Conveyor extends Block implements Autotiler{
                 clogHeat = 0f;
             }
 
-            noSleep();
+            changed = altered || lastMin != minitem || lastMid != mid || lastHeat != clogHeat || lastLen != len;
+            //with nothing moving, an update can only change something once the conveyor in front changes
+            settled = !changed && moved > 0f;
+        }
+
+        /** @return whether the head of this conveyor's line has to update it this tick. */
+        boolean needsStep(){
+            return !settled || timeScale != 1f;
+        }
+
+        /** Wakes this conveyor up, without marking it as changed. */
+        void wake(){
+            super.noSleep();
+        }
+
+        @Override
+        public void noSleep(){
+            //changed from the outside, so the conveyor behind it has to update again too
+            dirty = true;
+            settled = false;
+
+            if(line != null){
+                //the conveyor behind this one sees the change before this one updates again
+                if(lineIndex > 0) line.members.items[lineIndex - 1].settled = false;
+                line.head.wake();
+            }else{
+                super.noSleep();
+            }
+        }
+
+        @Override
+        public void onRemoved(){
+            super.onRemoved();
+            if(line != null) line.disband();
         }
 
         public boolean pass(Item item){
@@ -0,0 +1,121 @@
+package mindustry.world.blocks.distribution;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.world.blocks.distribution.Conveyor.*;
+
+/**
+ * A straight run of aligned conveyors of the same type and team, updated together by its {@link #head}, the conveyor
+ * furthest along the run. The other members are taken out of the entity update loop. Every tick, the head updates the
+ * members in line order, skipping members that are {@link ConveyorBuild#settled} while the conveyor in front of them
+ * didn't change: updating them would change nothing either. A jammed line therefore costs about as much as its head,
+ * instead of one building update per tile.
+ * <p>
+ * Items stay in the arrays of the conveyor they are on, so drawing, saving and item transfer are unchanged.
+ * Lines are formed by their head once it carries items, right after it updated, so that no member moves its items twice
+ * in one tick; they are disbanded whenever a member or one of its neighbors changes.
+ */
+public class ConveyorLine{
+    /** If false, no new lines are formed. */
+    public static boolean enabled = true;
+    /** Lines shorter than this aren't worth forming. */
+    public static int minLength = 4, maxLength = 256;
+    /** Ticks between attempts of a standalone conveyor to form a line. */
+    public static float formInterval = 60f;
+
+    /** Members from the back of the line to the head. */
+    public final Seq<ConveyorBuild> members = new Seq<>(ConveyorBuild.class);
+    public ConveyorBuild head;
+    /** Whether the head is currently updating members. */
+    boolean updating;
+
+    /**
+     * Forms the longest possible line through a conveyor that isn't part of one.
+     * @return the new line, or null if it would be too short or is left for its head to form.
+     */
+    public static @Nullable ConveyorLine form(ConveyorBuild build){
+        ConveyorBuild tail = build;
+        int length = 1;
+        while(length < maxLength && tail.back() instanceof ConveyorBuild prev && joins(prev, tail)){
+            tail = prev;
+            length ++;
+        }
+
+        ConveyorLine line = new ConveyorLine();
+        line.members.add(tail);
+        while(line.members.size < maxLength && joins(line.members.peek(), line.members.peek().nextc)){
+            line.members.add(line.members.peek().nextc);
+        }
+
+        if(line.members.size < minLength) return null;
+
+        if(line.members.peek() != build){
+            //members behind this one may already have updated this tick; let the head form the line after its own update
+            line.members.peek().lineCheck = formInterval;
+            return null;
+        }
+
+        line.head = build;
+        for(int i = 0; i < line.members.size; i++){
+            ConveyorBuild member = line.members.get(i);
+            member.line = line;
+            member.lineIndex = i;
+            member.settled = false;
+            if(member != line.head){
+                member.sleepNow();
+            }
+        }
+        line.head.wake();
+
+        return line;
+    }
+
+    /** @return whether conveyor {@code a} can be in a line right behind {@code b}. */
+    static boolean joins(ConveyorBuild a, @Nullable ConveyorBuild b){
+        return b != null && a.nextc == b && a.aligned && a.block == b.block && a.team == b.team &&
+            a.line == null && b.line == null && a.isValid() && b.isValid();
+    }
+
+    /**
+     * Updates all members that may change, from the back of the line to the head, the order in which a line built
+     * from its start updates on its own. Called by the head.
+     * @return whether any member carries items.
+     */
+    boolean update(){
+        boolean any = false;
+        ConveyorBuild[] items = members.items;
+        int size = members.size;
+
+        updating = true;
+        for(int i = 0; i < size; i++){
+            ConveyorBuild build = items[i];
+            //disbanded by one of the updates
+            if(build == null || build.line != this) break;
+
+            if(build == head){
+                //whatever is in front of the head isn't tracked, so it always updates
+                build.step();
+            }else if(build.needsStep() || items[i + 1].changed){
+                build.update();
+            }else{
+                build.changed = false;
+            }
+
+            any |= build.len > 0;
+        }
+        updating = false;
+
+        return any;
+    }
+
+    /** Returns every member to the entity update loop. */
+    public void disband(){
+        for(ConveyorBuild build : members){
+            build.line = null;
+            build.settled = false;
+            build.lineCheck = 0f;
+            build.wake();
+        }
+        members.clear();
+    }
+}
@@ -48,6 +48,12 @@ public class HeatProducer extends GenericCrafter{
             heat = Mathf.approachDelta(heat, heatOutput * efficiency, warmupRate * delta());
         }
 
+        @Override
+        public boolean dormant(){
+            //neighbors keep reading the heat, so it has to reach zero first
+            return super.dormant() && heat <= 0f;
+        }
+
         @Override
         public float heatFrac(){
             return heat / heatOutput;
@@ -153,6 +153,9 @@ public class Conduit extends LiquidBlock implements Autotiler{
         public float smoothLiquid;
         public int blendbits, xscl = 1, yscl = 1, blending;
         public boolean capped, backCapped = false;
+        /** The network this conduit is updated by, if any. */
+        public @Nullable LiquidGraph graph;
+        int graphIndex;
 
         @Override
         public void draw(){
@@ -217,6 +220,14 @@ public class Conduit extends LiquidBlock implements Autotiler{
             Building next = front(), prev = back();
             capped = next == null || next.team != team || !next.block.hasLiquids;
             backCapped = blendbits == 0 && (prev == null || prev.team != team || !prev.block.hasLiquids);
+
+            if(graph != null) graph.reflow();
+        }
+
+        @Override
+        public void onRemoved(){
+            super.onRemoved();
+            if(graph != null) graph.remove(this);
         }
 
         @Override
@@ -228,6 +239,11 @@ public class Conduit extends LiquidBlock implements Autotiler{
 
         @Override
         public void updateTile(){
+            if(graph != null){
+                graph.update(this);
+                return;
+            }
+
             smoothLiquid = Mathf.lerpDelta(smoothLiquid, liquids.currentAmount() / liquidCapacity, 0.05f);
 
             if(liquids.currentAmount() > 0.0001f && timer(timerFlow, 1)){
@@ -236,6 +252,30 @@ public class Conduit extends LiquidBlock implements Autotiler{
             }else{
                 sleep();
             }
+
+            if(LiquidGraph.active()){
+                LiquidGraph.add(this);
+            }
+        }
+
+        /** Moves this conduit's liquid into the building in front of it, or leaks it. */
+        public void flowForward(){
+            moveLiquidForward(leaks, liquids.current());
+        }
+
+        @Override
+        public void noSleep(){
+            //members of a graph are updated by its driver
+            if(graph != null && graph.driver != null && graph.driver != this){
+                graph.driver.wake();
+            }else{
+                super.noSleep();
+            }
+        }
+
+        /** Returns this conduit to the entity update loop. */
+        public void wake(){
+            super.noSleep();
         }
 
         @Nullable
@@ -0,0 +1,312 @@
+package mindustry.world.blocks.liquid;
+
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.gen.*;
+import mindustry.type.*;
+import mindustry.world.blocks.liquid.Conduit.*;
+import mindustry.world.modules.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * A connected network of conduits of one team, updated as a whole by its {@link #driver}, similar to how a
+ * {@link mindustry.world.blocks.power.PowerGraph} groups power buildings. The other members are taken out of the entity
+ * update loop. Every tick, the driver moves liquid along all members from the ends of the network towards its outlets,
+ * reading capacities and links from flat arrays instead of going through {@link Building#moveLiquid(Building, Liquid)}.
+ * <p>
+ * Only conduit-to-conduit flow is solved here. Flow out of the network, leaks and liquid reactions go through
+ * {@link Building#moveLiquidForward(boolean, Liquid)} as before, and liquid stays in each member's {@link LiquidModule}.
+ * Conduits join the graphs of their neighbors when they update, and graphs are merged, reordered or split as members
+ * are added, rotated or removed.
+ */
+public class LiquidGraph{
+    private static final IntSeq queue = new IntSeq();
+
+    /** If false, no new graphs are formed. */
+    public static boolean enabled = true;
+
+    /** All members, in no particular order. */
+    public final Seq<ConduitBuild> all = new Seq<>(false, 16, ConduitBuild.class);
+    /** The member that updates the graph; null until the graph is first updated. */
+    public @Nullable ConduitBuild driver;
+
+    //members from upstream to downstream, and their properties by index in that order
+    private ConduitBuild[] order = {};
+    private int[] next = {};
+    private float[] capacity = {}, pressure = {};
+    /** Whether members were added, removed or rotated since the arrays were built. */
+    private boolean changed = true;
+    /** Lets liquid move at most once per tick, like {@link Conduit#timerFlow} does for standalone conduits. */
+    private final Interval flowTimer = new Interval();
+
+    /** @return whether graphs can be used in the current state. */
+    public static boolean active(){
+        //members don't update, so they would never be revealed in fog
+        return enabled && (headless || !state.rules.fog);
+    }
+
+    /** Adds a conduit that isn't part of a graph, merging the graphs of the conduits it is connected to. */
+    public static void add(ConduitBuild build){
+        LiquidGraph graph = new LiquidGraph();
+        graph.all.add(build);
+        build.graph = graph;
+
+        for(int i = 0; i < build.proximity.size; i++){
+            if(build.proximity.get(i) instanceof ConduitBuild other && other.graph != null && other.graph != build.graph &&
+                (links(build, other) || links(other, build))){
+                build.graph.merge(other.graph);
+            }
+        }
+    }
+
+    /** @return whether liquid can flow from conduit {@code a} into conduit {@code b} right in front of it. */
+    static boolean links(ConduitBuild a, @Nullable Building b){
+        return b instanceof ConduitBuild && a.next() == b && a.team == b.team && (a.rotation + 2) % 4 != b.rotation &&
+            a.isValid() && b.isValid();
+    }
+
+    /** Moves the members of the smaller graph into the larger one. */
+    void merge(LiquidGraph other){
+        LiquidGraph big = all.size >= other.all.size ? this : other, small = big == this ? other : this;
+
+        for(ConduitBuild build : small.all){
+            build.graph = big;
+            big.all.add(build);
+        }
+        small.all.clear();
+        small.driver = null;
+        big.changed = true;
+    }
+
+    /** Removes a member; the rest of the graph is rebuilt on its next update. */
+    public void remove(ConduitBuild build){
+        all.remove(build, true);
+        build.graph = null;
+        changed = true;
+
+        if(driver == build) driver = null;
+        if(!all.isEmpty()) all.first().wake();
+    }
+
+    /** Called when a member rotated or its neighbors changed. */
+    public void reflow(){
+        changed = true;
+        if(driver != null){
+            driver.wake();
+        }else if(!all.isEmpty()){
+            all.first().wake();
+        }
+    }
+
+    /** Returns every member to the entity update loop, where they form new graphs. */
+    public void disband(){
+        for(ConduitBuild build : all){
+            build.graph = null;
+            build.wake();
+        }
+        all.clear();
+        driver = null;
+        order = new ConduitBuild[0];
+    }
+
+    /** Called by a member that is updating. Only the driver moves liquid; other members stop updating. */
+    public void update(ConduitBuild caller){
+        if(!active()){
+            disband();
+            return;
+        }
+
+        if(changed && !rebuild()) return;
+
+        if(caller != driver){
+            caller.sleepNow();
+            driver.wake();
+            return;
+        }
+
+        if(flow()){
+            driver.wake();
+        }else{
+            driver.sleep();
+        }
+    }
+
+    /**
+     * Moves liquid along every member once per tick, upstream members first.
+     * @return whether any member carries liquid.
+     */
+    boolean flow(){
+        boolean any = false, move = flowTimer.get(1f);
+        ConduitBuild[] order = this.order;
+
+        for(int i = 0; i < order.length; i++){
+            ConduitBuild build = order[i];
+            LiquidModule liquids = build.liquids;
+
+            if(!headless){
+                build.smoothLiquid = Mathf.lerpDelta(build.smoothLiquid, liquids.currentAmount() / capacity[i], 0.05f);
+            }
+
+            if(liquids.currentAmount() <= 0.0001f) continue;
+            any = true;
+
+            //frames shorter than a tick only smooth the displayed liquid
+            if(!move) continue;
+
+            int j = next[i];
+            if(j == -1 || !move(i, j)){
+                build.flowForward();
+            }
+        }
+
+        return any;
+    }
+
+    /**
+     * Moves liquid from member {@code i} into member {@code j} the way {@link Building#moveLiquid(Building, Liquid)} does.
+     * @return false if the move has to go through the building instead, because it may cause a reaction.
+     */
+    boolean move(int i, int j){
+        ConduitBuild from = order[i], to = order[j];
+        if(from.team != to.team) return false;
+
+        LiquidModule source = from.liquids, dest = to.liquids;
+        Liquid liquid = source.current();
+        float amount = source.get(liquid), other = dest.get(liquid);
+
+        float ofract = other / capacity[j];
+        float fract = amount / capacity[i] * pressure[i];
+        float flow = Math.min(Mathf.clamp(fract - ofract) * capacity[i], amount);
+        flow = Math.min(flow, capacity[j] - other);
+
+        if(flow > 0f && ofract <= fract && (dest.current() == liquid || dest.currentAmount() < 0.2f)){
+            dest.add(liquid, flow);
+            source.remove(liquid, flow);
+            return true;
+        }
+
+        return !(dest.currentAmount() / capacity[j] > 0.1f && fract > 0.1f && reacts(liquid, dest.current()));
+    }
+
+    /** @return whether these liquids react when they meet in a conduit. */
+    static boolean reacts(Liquid liquid, Liquid other){
+        return other.blockReactive && liquid.blockReactive && (
+            (other.flammability > 0.3f && liquid.temperature > 0.7f) || (liquid.flammability > 0.3f && other.temperature > 0.7f) ||
+            (liquid.temperature > 0.7f && other.temperature < 0.55f) || (other.temperature > 0.7f && liquid.temperature < 0.55f));
+    }
+
+    /**
+     * Orders the members from upstream to downstream and caches their links and properties.
+     * @return false if the members are no longer connected, in which case the graph is disbanded.
+     */
+    boolean rebuild(){
+        changed = false;
+
+        int size = all.size;
+        ConduitBuild[] members = all.items;
+        if(size == 0){
+            disband();
+            return false;
+        }
+
+        for(int i = 0; i < size; i++){
+            members[i].graphIndex = i;
+        }
+
+        //links and the amount of members flowing into each member
+        int[] links = new int[size], inputs = new int[size];
+        for(int i = 0; i < size; i++){
+            ConduitBuild build = members[i], front = build.next() instanceof ConduitBuild c ? c : null;
+            links[i] = front != null && front.graph == this && links(build, front) ? front.graphIndex : -1;
+            if(links[i] != -1) inputs[links[i]] ++;
+        }
+
+        //a connected graph of members with one output each has exactly one outlet or one loop, so size - 1 or size links
+        int[] parent = new int[size];
+        for(int i = 0; i < size; i++) parent[i] = i;
+        int components = size;
+        for(int i = 0; i < size; i++){
+            if(links[i] != -1){
+                int a = find(parent, i), b = find(parent, links[i]);
+                if(a != b){
+                    parent[a] = b;
+                    components --;
+                }
+            }
+        }
+
+        if(components > 1){
+            disband();
+            return false;
+        }
+
+        //upstream members first; members of a loop go last, in the order they are reached
+        int[] sorted = new int[size], position = new int[size];
+        boolean[] done = new boolean[size];
+        int count = 0;
+
+        queue.clear();
+        for(int i = 0; i < size; i++){
+            if(inputs[i] == 0) queue.add(i);
+        }
+        while(true){
+            while(!queue.isEmpty()){
+                int i = queue.pop();
+                done[i] = true;
+                sorted[count++] = i;
+                if(links[i] != -1 && --inputs[links[i]] == 0) queue.add(links[i]);
+            }
+
+            if(count == size) break;
+
+            //break the loop at any member left
+            for(int i = 0; i < size; i++){
+                if(!done[i]){
+                    inputs[i] = 0;
+                    queue.add(i);
+                    break;
+                }
+            }
+        }
+
+        order = new ConduitBuild[size];
+        next = new int[size];
+        capacity = new float[size];
+        pressure = new float[size];
+
+        for(int i = 0; i < size; i++){
+            position[sorted[i]] = i;
+        }
+        for(int i = 0; i < size; i++){
+            ConduitBuild build = members[sorted[i]];
+            int link = links[sorted[i]];
+            order[i] = build;
+            next[i] = link == -1 ? -1 : position[link];
+            capacity[i] = build.block.liquidCapacity;
+            pressure[i] = build.block.liquidPressure;
+        }
+
+        driver = order[size - 1];
+        for(ConduitBuild build : order){
+            if(build != driver) build.sleepNow();
+        }
+        driver.wake();
+
+        return true;
+    }
+
+    static int find(int[] parent, int i){
+        while(parent[i] != i){
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /** @return members from upstream to downstream, as of the last update. */
+    public ConduitBuild[] members(){
+        return order;
+    }
+}
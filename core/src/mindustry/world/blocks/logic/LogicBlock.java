@@ -236,6 +236,7 @@ public class LogicBlock extends Block{
         /** logic "source code" as list of asm statements */
         public String code = "";
         public LExecutor executor = new LExecutor();
+        public LogicProfiler.ProcessorStats profile = new LogicProfiler.ProcessorStats(this);
         public float accumulator = 0;
         public Seq<LogicLink> links = new Seq<>();
         public boolean checkedDuplicates = false;
@@ -526,10 +527,14 @@ public class LogicBlock extends Block{
 
                 if(accumulator > maxInstructionScale * ipt) accumulator = maxInstructionScale * ipt;
 
-                for(int i = 0; i < (int)accumulator; i++){
-                    executor.runOnce();
-                    accumulator --;
+                //as many steps as running one instruction at a time, counting i up and the accumulator down until they meet
+                int steps = Math.max((int)Math.floor((accumulator + 1.0) / 2.0), 0);
+                if(logicProfiler.active()){
+                    steps = logicProfiler.run(this, steps);
+                }else{
+                    executor.run(steps);
                 }
+                accumulator -= steps;
             }
         }
 
@@ -1,11 +1,13 @@
 package mindustry.world.blocks.power;
 
 import arc.*;
+import arc.func.*;
 import arc.math.*;
 import arc.struct.*;
 import arc.util.*;
 import mindustry.gen.*;
 import mindustry.world.consumers.*;
+import mindustry.world.meta.*;
 import mindustry.game.Team;
 import mindustry.Vars;
 
@@ -15,6 +17,9 @@ public class PowerGraph{
     private static final Seq<Building> outArray2 = new Seq<>();
     private static final IntSet closedSet = new IntSet();
 
+    /** If false, removals split the graph right away instead of before its next update. */
+    public static boolean deferRemoval = true;
+
     //do not modify any of these unless you know what you're doing!
     public final Seq<Building> producers = new Seq<>(false, 16, Building.class);
     public final Seq<Building> consumers = new Seq<>(false, 16, Building.class);
@@ -31,6 +36,13 @@ public class PowerGraph{
     private float energyDelta = 0f;
 
     private long lastFrameUpdated = -1;
+    //buildings removed since the last update, and whether one of them may have split the graph
+    private final ObjectSet<Building> removed = new ObjectSet<>();
+    private boolean splitPending;
+
+    //consumer and battery state as of the current update, so each building is only read once per update
+    private float[] consumerRequest = {}, batteryStatus = {}, batteryCapacity = {};
+    private boolean[] consumerValid = {}, batteryEnabled = {};
     private final int graphID;
     private static int lastGraphID;
 
@@ -221,6 +233,9 @@ public class PowerGraph{
     }
 
     public void update(){
+        //this graph was replaced by the graphs it split into, which have been updated already
+        if(removalPending() && applyRemovals()) return;
+
         team = all.size == 0 ? null : all.first().team;
         if(!consumers.isEmpty() && consumers.first().cheating()){
             //when cheating, just set status to 1
@@ -234,16 +249,18 @@ public class PowerGraph{
 
         lastFrameUpdated = Core.graphics.getFrameId();
 
-        float powerNeeded = getPowerNeeded();
+        float powerNeeded = readConsumers();
         float powerProduced = getPowerProduced();
 
         lastPowerNeeded = powerNeeded;
         lastPowerProduced = powerProduced;
 
+        readBatteries();
+
         lastScaledPowerIn = (powerProduced + energyDelta) / Time.delta;
         lastScaledPowerOut = powerNeeded / Time.delta;
-        lastCapacity = getTotalBatteryCapacity();
-        lastPowerStored = getBatteryStored();
+        lastCapacity = totalBatteryCapacity();
+        lastPowerStored = batteryStored();
 
         powerBalance.add((lastPowerProduced - lastPowerNeeded + energyDelta) / Time.delta);
         energyDelta = 0f;
@@ -253,19 +270,163 @@ public class PowerGraph{
 
             if(!Mathf.equal(powerNeeded, powerProduced)){
                 if(powerNeeded > powerProduced){
-                    float powerBatteryUsed = useBatteries(powerNeeded - powerProduced);
+                    float powerBatteryUsed = drainBatteries(powerNeeded - powerProduced);
                     powerProduced += powerBatteryUsed;
                     lastPowerProduced += powerBatteryUsed;
                 }else if(powerProduced > powerNeeded){
                     charged = true;
-                    powerProduced -= chargeBatteries(powerProduced - powerNeeded);
+                    powerProduced -= fillBatteries(powerProduced - powerNeeded);
+                }
+                writeBatteries();
+            }
+
+            supplyConsumers(powerNeeded, powerProduced, charged);
+        }
+    }
+
+    //region update over arrays
+    //these do the same float operations in the same order as the methods above, but read each building only once
+
+    /** Reads whether each consumer is valid and the power it requests. @return the power needed, like {@link #getPowerNeeded()}. */
+    float readConsumers(){
+        int size = consumers.size;
+        if(consumerRequest.length < size){
+            consumerRequest = new float[consumers.items.length];
+            consumerValid = new boolean[consumers.items.length];
+        }
+
+        float powerNeeded = 0f;
+        float[] request = consumerRequest;
+        boolean[] valid = consumerValid;
+        var items = consumers.items;
+        for(int i = 0; i < size; i++){
+            var consumer = items[i];
+            var consumePower = consumer.block.consPower;
+            valid[i] = otherConsumersAreValid(consumer, consumePower);
+            //buffered consumers request power even when they are invalid
+            if(valid[i] || consumePower.buffered){
+                request[i] = consumePower.requestedPower(consumer);
+            }
+            if(valid[i]){
+                powerNeeded += request[i] * consumer.delta();
+            }
+        }
+        return powerNeeded;
+    }
+
+    void readBatteries(){
+        int size = batteries.size;
+        if(batteryStatus.length < size){
+            batteryStatus = new float[batteries.items.length];
+            batteryCapacity = new float[batteries.items.length];
+            batteryEnabled = new boolean[batteries.items.length];
+        }
+
+        var items = batteries.items;
+        for(int i = 0; i < size; i++){
+            var battery = items[i];
+            batteryEnabled[i] = battery.enabled;
+            batteryStatus[i] = battery.power.status;
+            batteryCapacity[i] = battery.block.consPower.capacity;
+        }
+    }
+
+    void writeBatteries(){
+        var items = batteries.items;
+        for(int i = 0; i < batteries.size; i++){
+            items[i].power.status = batteryStatus[i];
+        }
+    }
+
+    float batteryStored(){
+        float total = 0f;
+        for(int i = 0; i < batteries.size; i++){
+            if(batteryEnabled[i]){
+                total += batteryStatus[i] * batteryCapacity[i];
+            }
+        }
+        return total;
+    }
+
+    float batteryMissing(){
+        float total = 0f;
+        for(int i = 0; i < batteries.size; i++){
+            if(batteryEnabled[i]){
+                total += (1f - batteryStatus[i]) * batteryCapacity[i];
+            }
+        }
+        return total;
+    }
+
+    float totalBatteryCapacity(){
+        float total = 0f;
+        for(int i = 0; i < batteries.size; i++){
+            if(batteryEnabled[i]){
+                total += batteryCapacity[i];
+            }
+        }
+        return total;
+    }
+
+    float drainBatteries(float needed){
+        float stored = batteryStored();
+        if(Mathf.equal(stored, 0f)) return 0f;
+
+        float used = Math.min(stored, needed);
+        float consumedPowerPercentage = Math.min(1.0f, needed / stored);
+        for(int i = 0; i < batteries.size; i++){
+            if(batteryEnabled[i]){
+                batteryStatus[i] *= (1f-consumedPowerPercentage);
+            }
+        }
+        return used;
+    }
+
+    float fillBatteries(float excess){
+        float capacity = batteryMissing();
+        float chargedPercent = Math.min(excess/capacity, 1f);
+        if(Mathf.equal(capacity, 0f)) return 0f;
+
+        for(int i = 0; i < batteries.size; i++){
+            if(batteryEnabled[i] && batteryCapacity[i] > 0f){
+                batteryStatus[i] += (1f - batteryStatus[i]) * chargedPercent;
+            }
+        }
+        return Math.min(excess, capacity);
+    }
+
+    /** Like {@link #distributePower(float, float, boolean)}, with the consumer state read by {@link #readConsumers()}. */
+    void supplyConsumers(float needed, float produced, boolean charged){
+        float coverage = Mathf.zero(needed) && Mathf.zero(produced) && !charged && Mathf.zero(lastPowerStored) ? 0f : Mathf.zero(needed) ? 1f : Math.min(1, produced / needed);
+        var items = consumers.items;
+        for(int i = 0; i < consumers.size; i++){
+            var consumer = items[i];
+            var cons = consumer.block.consPower;
+            float status = consumer.power.status;
+            if(cons.buffered){
+                if(!Mathf.zero(cons.capacity)){
+                    float maximumRate = consumerRequest[i] * coverage * consumer.delta();
+                    consumer.power.status = Mathf.clamp(consumer.power.status + maximumRate / cons.capacity);
+                }
+            }else{
+                if(consumerValid[i]){
+                    consumer.power.status = coverage;
+                }else{
+                    consumer.power.status = Math.min(1, produced / (needed + cons.usage * consumer.delta()));
+                    if(Float.isNaN(consumer.power.status)){
+                        consumer.power.status = 0f;
+                    }
                 }
             }
 
-            distributePower(powerNeeded, powerProduced, charged);
+            if(consumer.power.status != status){
+                consumer.wake(WakeEvent.powerChanged);
+            }
         }
     }
 
+    //endregion
+
     public void addGraph(PowerGraph graph){
         if(graph == this) return;
 
@@ -279,17 +440,25 @@ public class PowerGraph{
         if(graph.entity != null) graph.entity.remove();
 
         for(Building tile : graph.all){
-            add(tile);
+            if(tile.power.graph == graph && !graph.removed.contains(tile)){
+                add(tile);
+            }
         }
+        //the merged graph may still have to be split
+        splitPending |= graph.splitPending;
         checkAdd();
     }
 
     public void add(Building build){
         if(build == null || build.power == null) return;
 
+        //removed and added back before the removal was applied, so it's still listed
+        if(build.power.graph == this && removed.remove(build)) return;
+
         if(build.power.graph != this || !build.power.init){
             //any old graph that is added here MUST be invalid, remove it
-            if(build.power.graph != null && build.power.graph != this){
+            //unless it still has removals to apply, which also handles the members that weren't moved here
+            if(build.power.graph != null && build.power.graph != this && !build.power.graph.removalPending()){
                 if(build.power.graph.entity != null) build.power.graph.entity.remove();
             }
 
@@ -347,9 +516,93 @@ public class PowerGraph{
         batteries.remove(build);
     }
 
+    /**
+     * Removes a building that is leaving the world. Unless {@link #deferRemoval} is false, the graph is only split
+     * before its next update, so that any amount of removals in one tick cost a single pass over the graph.
+     * Buildings with at most one connection in this graph can't split it, so they are simply dropped from the lists.
+     */
+    public void remove(Building tile){
+        if(!deferRemoval){
+            split(tile);
+            return;
+        }
+
+        int connections = 0;
+        for(Building other : tile.getPowerConnections(outArray1)){
+            if(other.power.graph == this) connections ++;
+        }
+
+        removed.add(tile);
+        if(connections > 1) splitPending = true;
+    }
+
+    /** @return whether buildings were removed since the last update. */
+    public boolean removalPending(){
+        return splitPending || !removed.isEmpty();
+    }
+
+    /**
+     * Drops the removed buildings from the lists, and splits the graph if it may no longer be connected.
+     * @return whether this graph was split, and is no longer used.
+     */
+    boolean applyRemovals(){
+        if(!splitPending){
+            //members may also have been moved to another graph in the meantime
+            Boolf<Building> gone = b -> b.power.graph != this || removed.contains(b);
+            all.removeAll(gone);
+            producers.removeAll(gone);
+            consumers.removeAll(gone);
+            batteries.removeAll(gone);
+            removed.clear();
+
+            if(all.isEmpty()){
+                clear();
+                return true;
+            }
+            return false;
+        }
+
+        var items = all.items;
+        int size = all.size;
+        Seq<PowerGraph> graphs = new Seq<>();
+
+        for(int i = 0; i < size; i++){
+            Building start = items[i];
+            //already in one of the new graphs, moved elsewhere, or removed
+            if(start.power.graph != this || removed.contains(start)) continue;
+
+            PowerGraph graph = new PowerGraph();
+            graph.checkAdd();
+            graph.add(start);
+            graphs.add(graph);
+
+            queue.clear();
+            queue.addLast(start);
+            while(queue.size > 0){
+                Building child = queue.removeFirst();
+                for(Building next : child.getPowerConnections(outArray2)){
+                    if(next.power.graph == this && !removed.contains(next)){
+                        graph.add(next);
+                        queue.addLast(next);
+                    }
+                }
+            }
+        }
+
+        removed.clear();
+        splitPending = false;
+        clear();
+
+        //update the new graphs once so direct consumers without any connected producer lose their power
+        for(PowerGraph graph : graphs){
+            graph.update();
+        }
+        return true;
+    }
+
     /** Note that this does not actually remove the building from the graph;
      * it creates *new* graphs that contain the correct buildings. Doing this invalidates the graph. */
-    public void remove(Building tile){
+    void split(Building tile){
 
         //go through all the connections of this tile
         for(Building other : tile.getPowerConnections(outArray1)){
@@ -62,6 +62,11 @@ public class BurstDrill extends Drill{
         public float smoothProgress = 0f;
         public float invertTime = 0f;
 
+        @Override
+        public boolean dormant(){
+            return super.dormant() && invertTime <= 0f;
+        }
+
         @Override
         public void updateTile(){
             if(dominantItem == null){
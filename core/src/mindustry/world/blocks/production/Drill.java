@@ -261,6 +261,12 @@ public class Drill extends Block{
             return items.total() < itemCapacity && enabled;
         }
 
+        @Override
+        public boolean dormant(){
+            //nothing to dump, and either nothing to mine or no way to mine it
+            return items.total() == 0 && warmup <= 0f && (dominantItem == null || dominantItems == 0 || efficiency <= 0f);
+        }
+
         @Override
         public boolean shouldAmbientSound(){
             return efficiency > 0.01f && items.total() < itemCapacity;
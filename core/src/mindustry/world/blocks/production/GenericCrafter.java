@@ -269,6 +269,13 @@ public class GenericCrafter extends Block{
             return 1f;
         }
 
+        @Override
+        public boolean dormant(){
+            //nothing to craft, output or cool down
+            return efficiency <= 0f && warmup <= 0f && progress < 1f && (items == null || items.total() == 0) &&
+                (liquids == null || liquids.sum((liquid, amount) -> amount) <= 0f);
+        }
+
         @Override
         public float warmup(){
             return warmup;
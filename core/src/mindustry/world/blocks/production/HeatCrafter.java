@@ -52,6 +52,12 @@ public class HeatCrafter extends GenericCrafter{
             super.updateTile();
         }
 
+        @Override
+        public boolean dormant(){
+            //heat from neighbors arrives without waking this building
+            return false;
+        }
+
         @Override
         public float heatRequirement(){
             return heatRequirement;
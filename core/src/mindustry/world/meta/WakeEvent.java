@@ -0,0 +1,13 @@
+package mindustry.world.meta;
+
+/** Events that wake a dormant building, declared per block in {@link mindustry.world.Block#wakeOn}. */
+public enum WakeEvent{
+    /** An item was handed to the building. */
+    itemReceived,
+    /** Liquid was handed to the building. */
+    liquidReceived,
+    /** The power status of the building changed. */
+    powerChanged,
+    /** {@link mindustry.world.Block#wakeInterval} ticks passed since the building went to sleep. */
+    timer
+}
@@ -10,6 +10,7 @@ import arc.util.CommandHandler.*;
 import arc.util.Timer.*;
 import arc.util.serialization.*;
 import arc.util.serialization.JsonValue.*;
+import mindustry.arcModule.ReplayAnalyzer;
 import mindustry.arcModule.TimeControl;
 import mindustry.core.GameState.*;
 import mindustry.core.*;
@@ -48,6 +49,8 @@ public class ServerControl implements ApplicationListener{
     public final Fi logFolder = Core.settings.getDataDirectory().child("logs/");
 
     private final Interval autosaveCount = new Interval();
+    /** Whether an autosave is still being written in the background. */
+    private volatile boolean autosaving;
 
     public Runnable serverInput = () -> {
         Scanner scan = new Scanner(System.in);
@@ -220,6 +223,11 @@ public class ServerControl implements ApplicationListener{
         Events.run(Trigger.update, () -> {
             if(state.isPlaying() && Config.autosave.bool()){
                 if(autosaveCount.get(Config.autosaveSpacing.num() * 60)){
+                    if(autosaving){
+                        warn("Previous autosave is still being written, skipping.");
+                        return;
+                    }
+
                     int max = Config.autosaveAmount.num();
 
                     //use map file name to make sure it can be saved
@@ -240,12 +248,29 @@ public class ServerControl implements ApplicationListener{
                     Fi file = saveDirectory.child(fileName);
                     info("Autosaving...");
 
+                    //capture the world on this thread, then compress and write it in the background
+                    long start = Time.nanos();
+                    SaveIO.SaveSnapshot snapshot;
                     try{
-                        SaveIO.save(file);
-                        info("Autosave completed.");
+                        snapshot = SaveIO.snapshot();
                     }catch(Throwable e){
                         err("Autosave failed.", e);
+                        return;
                     }
+                    float pause = Time.timeSinceNanos(start) / 1000000f;
+
+                    autosaving = true;
+                    Threads.daemon("Autosave", () -> {
+                        try{
+                            snapshot.save(file);
+                            float total = Time.timeSinceNanos(start) / 1000000f;
+                            Core.app.post(() -> info("Autosave completed in @ms (@ms on the main thread).", (int)total, (int)pause));
+                        }catch(Throwable e){
+                            Core.app.post(() -> err("Autosave failed.", e));
+                        }finally{
+                            autosaving = false;
+                        }
+                    });
                 }
             }
         });
@@ -460,6 +485,10 @@ public class ServerControl implements ApplicationListener{
 
                 info("  @ FPS, @ MB used.", Core.graphics.getFramesPerSecond(), Core.app.getJavaHeap() / 1024 / 1024);
 
+                if(unitQueries.hits + unitQueries.misses > 0){
+                    info("  Unit query cache: @% hit rate (@ hits, @ misses)", (int)(unitQueries.hitRate() * 100), unitQueries.hits, unitQueries.misses);
+                }
+
                 if(Groups.player.size() > 0){
                     info("  Players: @", Groups.player.size());
                     for(Player p : Groups.player){
@@ -960,6 +989,80 @@ public class ServerControl implements ApplicationListener{
             }
         });
 
+        handler.register("replay", "<file...>", "Summarize a recorded replay without playing it. The full event log is written next to the file.", arg -> {
+            Fi file = Core.files.absolute(arg[0]);
+            if(!file.exists() || file.isDirectory()){
+                err("No replay found at '@'.", file.absolutePath());
+                return;
+            }
+
+            Threads.daemon("Replay Analyzer", () -> {
+                try{
+                    long start = Time.nanos();
+                    ReplayAnalyzer.Summary summary = ReplayAnalyzer.analyze(file.file());
+                    Fi out = file.sibling(file.nameWithoutExtension() + ".txt");
+                    out.writeString(summary.report(true).toString("\n"));
+                    float time = Time.timeSinceNanos(start) / 1000000f;
+                    Core.app.post(() -> {
+                        summary.report(false).each(line -> info(line));
+                        info("Analyzed in @ms. Event log written to @.", (int)time, out.absolutePath());
+                    });
+                }catch(Throwable e){
+                    Core.app.post(() -> err("Failed to read replay.", e));
+                }
+            });
+        });
+
+        handler.register("logicprofile", "[reset]", "Show the logic processors and instruction types that take the most time.", arg -> {
+            if(arg.length > 0 && arg[0].equals("reset")){
+                netServer.admins.resetLogicProfile();
+                info("Logic profile reset.");
+                return;
+            }
+
+            if(!Config.logicProfiling.bool()){
+                err("Logic profiling is disabled. Enable it with 'config logicProfiling true'.");
+                return;
+            }
+
+            var processors = netServer.admins.getLogicProfile();
+            info("Processors: @", processors.size);
+            for(int i = 0; i < Math.min(processors.size, 10); i++){
+                var p = processors.get(i);
+                info("  @ at @,@ (@): @ us/update, @ instructions/update, throttled @ times", p.build.block.name, p.build.tileX(), p.build.tileY(), p.build.team.name,
+                    Strings.fixed(p.microsPerUpdate(), 1), (int)p.stepsPerUpdate(), p.throttled);
+            }
+
+            info("Instructions (sampled):");
+            for(var inst : netServer.admins.getLogicInstructionProfile()){
+                info("  @: @ runs, @ ns each", inst.name, inst.count, Strings.fixed(inst.nanosPerRun(), 1));
+            }
+        });
+
+        handler.register("dormancy", "Show how many buildings of each block are asleep and awake.", arg -> {
+            if(state.isMenu()){
+                err("Not playing a map.");
+                return;
+            }
+
+            //only blocks that can go dormant; other buildings sleep for their own reasons, e.g. as members of conveyor lines
+            var awake = dormancy.awake();
+            var blocks = content.blocks().select(b -> b.wakeOn.size > 0 && (b.sleepingBuilds > 0 || awake.get(b, 0) > 0));
+            blocks.sort(b -> -(b.sleepingBuilds + awake.get(b, 0)));
+
+            int asleep = 0, active = 0;
+            for(var block : blocks){
+                asleep += block.sleepingBuilds;
+                active += awake.get(block, 0);
+            }
+
+            info("Dormant blocks: @ asleep, @ awake, @ waiting for a timer", asleep, active, dormancy.scheduled());
+            for(int i = 0; i < Math.min(blocks.size, 20); i++){
+                var block = blocks.get(i);
+                info("  @: @ asleep, @ awake", block.name, block.sleepingBuilds, awake.get(block, 0));
+            }
+        });
+
         handler.register("gameover", "Force a game over.", arg -> {
             if(state.isMenu()){
                 err("Not playing a map.");
@@ -1,6 +1,8 @@
 import arc.*;
 import arc.backend.headless.*;
 import arc.files.*;
+import arc.func.*;
+import arc.math.*;
 import arc.math.geom.*;
 import arc.struct.*;
 import arc.util.*;
@@ -8,30 +10,46 @@ import arc.util.io.*;
 import arc.util.serialization.*;
 import arc.util.serialization.JsonValue.*;
 import mindustry.*;
+import mindustry.ai.Pathfinder.*;
+import mindustry.async.*;
+import mindustry.async.PhysicsProcess.PhysicsWorld.*;
+import mindustry.async.PhysicsProcess.*;
 import mindustry.content.*;
 import mindustry.core.*;
 import mindustry.core.GameState.*;
 import mindustry.ctype.*;
+import mindustry.entities.*;
 import mindustry.entities.units.*;
 import mindustry.game.*;
 import mindustry.gen.*;
 import mindustry.io.*;
 import mindustry.io.SaveIO.*;
+import mindustry.logic.*;
+import mindustry.logic.LExecutor.*;
 import mindustry.maps.*;
 import mindustry.mod.*;
 import mindustry.mod.Mods.*;
 import mindustry.net.*;
+import mindustry.net.Administration.*;
 import mindustry.net.Packets.*;
 import mindustry.type.*;
 import mindustry.world.*;
+import mindustry.world.blocks.distribution.*;
+import mindustry.world.blocks.distribution.Conveyor.*;
+import mindustry.world.blocks.liquid.*;
+import mindustry.world.blocks.liquid.Conduit.*;
+import mindustry.world.blocks.logic.LogicBlock.*;
 import mindustry.world.blocks.payloads.*;
+import mindustry.world.blocks.production.*;
 import mindustry.world.blocks.storage.*;
+import mindustry.world.meta.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.*;
 import org.junit.jupiter.params.provider.*;
 
 import java.io.*;
 import java.nio.*;
+import java.util.zip.*;
 
 import static mindustry.Vars.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -133,6 +151,16 @@ public class ApplicationTests{
         state.set(State.menu);
     }
 
+    /** Loads an empty map of the given size. {@code setup} places blocks before the map finishes loading. */
+    Tiles emptyMap(int width, int height, Cons<Tiles> setup){
+        Tiles tiles = world.resize(width, height);
+        world.beginMapLoad();
+        tiles.fill();
+        setup.get(tiles);
+        world.endMapLoad();
+        return tiles;
+    }
+
     @ParameterizedTest
     @NullSource
     @ValueSource(strings = {
@@ -250,6 +278,24 @@ public class ApplicationTests{
         world.loadMap(testMap);
     }
 
+    @Test
+    void splicedWorldStream() throws IOException{
+        world.loadMap(testMap);
+        Player player = Player.create();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        NetworkIO.writeWorld(player, expected);
+
+        ReusableByteOutStream header = new ReusableByteOutStream(), data = new ReusableByteOutStream();
+        NetworkIO.writeWorldHeader(player, new DataOutputStream(header));
+        NetworkIO.writeWorldData(new DataOutputStream(data));
+
+        byte[] spliced = NetworkIO.spliceWorld(header.getBytes(), header.size(), NetworkIO.compressWorldData(data.getBytes(), data.size()));
+
+        //the inflater also verifies the combined checksum when it reaches the end
+        assertArrayEquals(expected.toByteArray(), new InflaterInputStream(new ByteArrayInputStream(spliced)).readAllBytes());
+    }
+
     @Test
     void spawnWaves(){
         world.loadMap(testMap);
@@ -265,11 +311,7 @@ public class ApplicationTests{
 
     @Test
     void createMap(){
-        Tiles tiles = world.resize(8, 8);
-
-        world.beginMapLoad();
-        tiles.fill();
-        world.endMapLoad();
+        emptyMap(8, 8, tiles -> {});
     }
 
     @Test
@@ -454,6 +496,125 @@ public class ApplicationTests{
         assertTrue(leftTank.build.liquids.currentAmount() > 0, "Liquid router did not distribute to rightTank");
     }
 
+    @Test
+    void liquidGraphs(){
+        float[] stored = new float[2];
+
+        for(int run = 0; run < 2; run++){
+            resetWorld();
+            world.loadMap(testMap);
+            state.set(State.playing);
+            state.rules.limitMapArea = false;
+            LiquidGraph.enabled = run == 1;
+
+            int length = 32;
+            world.tile(0, 0).setBlock(Blocks.liquidSource, Team.sharded);
+            world.tile(0, 0).build.configureAny(Liquids.water);
+            Seq<Building> entities = Seq.with(world.tile(0, 0).build);
+
+            for(int i = 0; i < length; i++){
+                world.tile(i + 1, 0).setBlock(Blocks.conduit, Team.sharded, 0);
+                entities.add(world.tile(i + 1, 0).build);
+            }
+
+            world.tile(length + 2, 0).setBlock(Blocks.liquidTank, Team.sharded);
+            Building tank = world.tile(length + 2, 0).build;
+            entities.add(tank);
+            entities.each(Building::updateProximity);
+
+            //frames of a quarter tick, like a client running at 240 FPS; liquid must still move once per tick
+            Time.setDeltaProvider(() -> 0.25f);
+            for(int i = 0; i < 2400; i++){
+                Time.update();
+                entities.each(Building::update);
+            }
+            Time.setDeltaProvider(() -> 1f);
+            stored[run] = tank.liquids.get(Liquids.water);
+
+            if(run == 1){
+                ConduitBuild first = (ConduitBuild)world.tile(1, 0).build;
+                assertNotNull(first.graph, "Connected conduits must form a graph.");
+                assertEquals(length, first.graph.all.size);
+                assertSame(world.tile(length, 0).build, first.graph.driver);
+                assertSame(first, first.graph.members()[0], "Members must be ordered from upstream to downstream.");
+
+                //removing a conduit splits the graph, and each part forms its own again
+                world.tile(length / 2, 0).remove();
+                entities.remove(b -> !b.isValid());
+                for(int i = 0; i < 10; i++){
+                    Time.update();
+                    entities.each(Building::update);
+                }
+
+                ConduitBuild last = (ConduitBuild)world.tile(length, 0).build;
+                assertNotNull(first.graph);
+                assertNotNull(last.graph);
+                assertNotSame(first.graph, last.graph);
+                assertEquals(length / 2 - 1, first.graph.all.size);
+                assertEquals(length - length / 2, last.graph.all.size);
+            }
+        }
+
+        LiquidGraph.enabled = true;
+        Log.info("Liquid graphs: @ water stored standalone, @ with a graph", stored[0], stored[1]);
+        assertTrue(stored[0] > 0);
+        assertEquals(stored[0], stored[1], stored[0] / 50f, "Graphs must move liquid like standalone conduits.");
+    }
+
+    @Test
+    void dormantBuildings(){
+        world.loadMap(testMap);
+        state.set(State.playing);
+        state.rules.limitMapArea = false;
+
+        //an unpowered crafter without items has nothing to do
+        world.tile(5, 5).setBlock(Blocks.siliconSmelter, Team.sharded);
+        Building smelter = world.tile(5, 5).build;
+        int sleeping = Blocks.siliconSmelter.sleepingBuilds;
+
+        updateBlocks(200);
+        assertTrue(smelter.isSleeping(), "An idle crafter must go dormant.");
+        assertEquals(sleeping + 1, Blocks.siliconSmelter.sleepingBuilds);
+
+        smelter.handleItem(null, Items.coal);
+        assertFalse(smelter.isSleeping(), "Receiving an item must wake a dormant crafter.");
+        assertEquals(sleeping, Blocks.siliconSmelter.sleepingBuilds);
+
+        //crafters defined outside of vanilla content, as mods do, don't go dormant unless they ask to
+        assertTrue(new GenericCrafter("dormant-modded"){}.wakeOn.size == 0, "Dormancy must be opt-in for new crafters.");
+
+        //blocks may also ask to be woken after a while
+        Block timed = new Block("dormant-timer"){{
+            update = true;
+            destructible = true;
+            wakeOn = EnumSet.of(WakeEvent.timer);
+            wakeInterval = 30f;
+            buildType = () -> new Building(){
+                @Override
+                public boolean dormant(){
+                    return true;
+                }
+            };
+        }};
+        world.tile(10, 10).setBlock(timed, Team.sharded);
+        Building build = world.tile(10, 10).build;
+
+        updateBlocks(200);
+        assertTrue(build.isSleeping());
+        assertEquals(1, dormancy.scheduled());
+
+        state.tick += 31f;
+        dormancy.update();
+        assertFalse(build.isSleeping(), "A timer must wake a dormant building.");
+        assertEquals(0, dormancy.scheduled());
+
+        //removing a sleeping building keeps the counts right
+        updateBlocks(200);
+        assertEquals(1, timed.sleepingBuilds);
+        world.tile(10, 10).remove();
+        assertEquals(0, timed.sleepingBuilds);
+    }
+
     @Test
     void sorterOutputCorrect() {
         world.loadMap(testMap);
@@ -613,6 +774,414 @@ public class ApplicationTests{
         assertNotEquals(0, itemsa[0]);
     }
 
+    @Test
+    void conveyorLines(){
+        int[] delivered = new int[2];
+        boolean[] accepting = {true};
+
+        for(int run = 0; run < 2; run++){
+            resetWorld();
+            world.loadMap(testMap);
+            state.set(State.playing);
+            state.rules.limitMapArea = false;
+            ConveyorLine.enabled = run == 1;
+
+            int length = 64, index = run;
+            world.tile(0, 0).setBlock(Blocks.itemSource, Team.sharded);
+            world.tile(0, 0).build.configureAny(Items.copper);
+            Seq<Building> entities = Seq.with(world.tile(0, 0).build);
+
+            for(int i = 0; i < length; i++){
+                world.tile(i + 1, 0).setBlock(Blocks.conveyor, Team.sharded, 0);
+                entities.add(world.tile(i + 1, 0).build);
+            }
+
+            world.tile(length + 1, 0).setBlock(new Block("___"){{
+                hasItems = true;
+                destructible = true;
+                buildType = () -> new Building(){
+                    @Override
+                    public void handleItem(Building source, Item item){
+                        delivered[index] ++;
+                    }
+
+                    @Override
+                    public boolean acceptItem(Building source, Item item){
+                        return accepting[0];
+                    }
+                };
+            }}, Team.sharded);
+
+            entities.each(Building::updateProximity);
+            accepting[0] = true;
+
+            for(int i = 0; i < 3000; i++){
+                entities.each(Building::update);
+            }
+
+            if(run == 1){
+                ConveyorBuild first = (ConveyorBuild)world.tile(1, 0).build;
+                assertNotNull(first.line, "A straight conveyor run must form a line.");
+                assertEquals(length, first.line.members.size);
+                assertSame(world.tile(length, 0).build, first.line.head);
+
+                //once the line jams, only the head and the members that still change are updated
+                accepting[0] = false;
+                for(int i = 0; i < 600; i++){
+                    entities.each(Building::update);
+                }
+                assertTrue(first.line.members.count(b -> b.settled) >= length - 2, "A jammed line must settle.");
+
+                //a new building next to the line splits it up again
+                world.tile(length / 2, 1).setBlock(Blocks.router, Team.sharded);
+                assertNull(first.line);
+            }
+        }
+
+        ConveyorLine.enabled = true;
+        Log.info("Conveyor lines: @ items delivered standalone, @ as a line", delivered[0], delivered[1]);
+        assertTrue(delivered[0] > 0);
+        //members update in the same order as the standalone conveyors, and skipped members would not have changed
+        assertEquals(delivered[0], delivered[1], "Lines must move items like standalone conveyors.");
+    }
+
+    @Test
+    void flowfieldRepair(){
+        emptyMap(100, 100, tiles -> {});
+
+        Vec2 target = new Vec2(50 * tilesize, 50 * tilesize);
+        PositionTarget repaired = new PositionTarget(target);
+        pathfinder.recalculate(repaired);
+
+        Rand rand = new Rand(0);
+        Seq<Tile> walls = new Seq<>();
+
+        for(int i = 0; i < 50; i++){
+            Tile tile = editWall(rand, walls, 100, i);
+            pathfinder.repair(repaired, tile);
+
+            PositionTarget fresh = new PositionTarget(target);
+            pathfinder.recalculate(fresh);
+            assertArrayEquals(fresh.weights, repaired.weights, "Repaired flow field must match a full recalculation after edit " + i + ".");
+        }
+
+        //building and destroying a core changes the targets of enemy core fields, which a repair has to pick up
+        emptyMap(100, 100, tiles -> tiles.get(20, 20).setBlock(Blocks.coreShard, Team.crux));
+        state.rules.waves = false;
+        state.teams.updateTeamStats();
+
+        EnemyCoreField cores = coreField();
+        pathfinder.recalculate(cores);
+
+        Tile core = world.tile(70, 70);
+        core.setBlock(Blocks.coreShard, Team.crux);
+        state.teams.updateTeamStats();
+        pathfinder.repair(cores, core);
+
+        EnemyCoreField fresh = coreField();
+        pathfinder.recalculate(fresh);
+        assertEquals(0, fresh.weights[core.array()]);
+        assertArrayEquals(fresh.weights, cores.weights, "A built core must become a target.");
+
+        core.setAir();
+        state.teams.updateTeamStats();
+        pathfinder.repair(cores, core);
+
+        fresh = coreField();
+        pathfinder.recalculate(fresh);
+        assertNotEquals(0, fresh.weights[core.array()]);
+        assertArrayEquals(fresh.weights, cores.weights, "A destroyed core must no longer be a target.");
+    }
+
+    EnemyCoreField coreField(){
+        return new EnemyCoreField(){{
+            team = Team.sharded;
+        }};
+    }
+
+    @Test
+    @Tag("benchmark")
+    void flowfieldRepairBench(){
+        emptyMap(500, 500, tiles -> {});
+
+        Vec2 target = new Vec2(250 * tilesize, 250 * tilesize);
+        PositionTarget full = new PositionTarget(target), repaired = new PositionTarget(target);
+        pathfinder.recalculate(full);
+        pathfinder.recalculate(repaired);
+
+        Rand rand = new Rand(0);
+        Seq<Tile> walls = new Seq<>();
+        long fullTime = 0, repairTime = 0;
+        int edits = 50;
+
+        for(int i = 0; i < edits; i++){
+            Tile tile = editWall(rand, walls, 500, i);
+
+            long start = Time.nanos();
+            pathfinder.recalculate(full);
+            fullTime += Time.timeSinceNanos(start);
+
+            start = Time.nanos();
+            pathfinder.repair(repaired, tile);
+            repairTime += Time.timeSinceNanos(start);
+        }
+
+        Log.info("Flow field full recalculation: @ms, repair: @ms (@ single-tile edits on a 500x500 map)", fullTime / 1000000f, repairTime / 1000000f, edits);
+    }
+
+    /** Alternates between placing and removing single walls away from the map edges. */
+    Tile editWall(Rand rand, Seq<Tile> walls, int size, int edit){
+        Tile tile;
+        if(edit % 2 == 0 || walls.isEmpty()){
+            tile = world.tile(rand.random(10, size - 11), rand.random(10, size - 11));
+            tile.setBlock(Blocks.copperWall);
+            walls.add(tile);
+        }else{
+            tile = walls.remove(rand.random(walls.size - 1));
+            tile.setAir();
+        }
+        return tile;
+    }
+
+    @Test
+    void controlPathfinder(){
+        windingPaths();
+    }
+
+    @Test
+    @Tag("benchmark")
+    void controlPathfinderBench(){
+        Log.info("Control pathfinder: 20 winding paths on a 200x200 map found in @ms", windingPaths());
+    }
+
+    /** Finds paths for several units through a winding map and checks that all of them arrive. @return the time taken, in milliseconds. */
+    long windingPaths(){
+        //walls with gaps at alternating ends, so every path has to wind through the whole map
+        emptyMap(200, 200, tiles -> {
+            for(int x = 20; x < 180; x += 20){
+                for(int y = 0; y < 200; y++){
+                    if((x / 20) % 2 == 0 ? y < 190 : y >= 10){
+                        tiles.get(x, y).setBlock(Blocks.stoneWall);
+                    }
+                }
+            }
+        });
+        state.set(State.playing);
+
+        //more units than searches that can run at once on a thread, so some have to wait for a context
+        int count = 20;
+        Unit[] units = new Unit[count];
+        Vec2[] targets = new Vec2[count];
+        int[] ids = new int[count];
+
+        for(int i = 0; i < count; i++){
+            units[i] = UnitTypes.dagger.create(Team.sharded);
+            units[i].set((2 + i % 10) * tilesize, (5 + i / 10 * 18) * tilesize);
+            //separate destinations, so that no paths get shared
+            targets[i] = new Vec2(195 * tilesize, (5 + i * 9) * tilesize);
+            ids[i] = controlPath.nextTargetId();
+        }
+
+        Vec2 out = new Vec2();
+        boolean[] noResult = {false};
+        boolean[] found = new boolean[count];
+        long start = Time.millis();
+        int done = 0;
+
+        while(done < count && Time.timeSinceMillis(start) < 10000){
+            done = 0;
+            for(int i = 0; i < count; i++){
+                if(controlPath.getPathPosition(units[i], ids[i], targets[i], out, noResult)){
+                    found[i] = !noResult[0];
+                    done++;
+                }
+            }
+            Threads.sleep(1);
+        }
+
+        long time = Time.timeSinceMillis(start);
+
+        assertEquals(count, done, "All paths must finish.");
+        for(int i = 0; i < count; i++){
+            assertTrue(found[i], "Path " + i + " must reach its destination.");
+        }
+        return time;
+    }
+
+    @Test
+    void bulletBroadphase(){
+        emptyMap(100, 100, tiles -> {});
+        state.set(State.playing);
+
+        Rand rand = new Rand(0);
+        //crowded into a corner, so that plenty of bullets are in reach of a unit
+        float size = 30 * tilesize;
+        for(int i = 0; i < 200; i++){
+            Unit unit = UnitTypes.dagger.create(i % 2 == 0 ? Team.sharded : Team.crux);
+            unit.set(rand.random(size), rand.random(size));
+            unit.add();
+        }
+        for(int i = 0; i < BulletBroadphase.minBullets * 2; i++){
+            Bullets.placeholder.create(null, i % 2 == 0 ? Team.sharded : Team.crux, rand.random(size), rand.random(size), rand.random(360f));
+        }
+        state.teams.updateTeamStats();
+
+        IntSet skipped = asyncCore.broadphase.update();
+        assertNotNull(skipped, "The broadphase must run with this many bullets.");
+
+        Rect r1 = new Rect(), r2 = new Rect(), hitbox = new Rect();
+        int checked = 0;
+        for(Bullet bullet : Groups.bullet){
+            //the swept bounds that EntityCollisions queries the unit trees with
+            bullet.hitbox(r1);
+            r1.x += bullet.lastX - bullet.x;
+            r1.y += bullet.lastY - bullet.y;
+            bullet.hitbox(r2);
+            r2.merge(r1);
+
+            boolean overlaps = false;
+            for(Unit unit : Groups.unit){
+                unit.hitbox(hitbox);
+                if(unit.team != bullet.team && hitbox.overlaps(r2)){
+                    overlaps = true;
+                    break;
+                }
+            }
+
+            assertEquals(!overlaps, skipped.contains(bullet.id), "Bullets must be skipped exactly when no enemy unit is in reach.");
+            if(overlaps) checked++;
+        }
+
+        assertTrue(checked > 0, "Some bullets must be in reach of an enemy unit.");
+        assertTrue(skipped.size > 0, "Some bullets must be skipped.");
+    }
+
+    @Test
+    void parallelPhysicsDeterminism(){
+        Rect bounds = new Rect(0, 0, 4000, 4000);
+        PhysicsWorld serial = new PhysicsWorld(bounds), first = new PhysicsWorld(bounds), second = new PhysicsWorld(bounds);
+        int count = 4000;
+        float maxRadius = 12f;
+        PhysicsBody[][] bodies = new PhysicsBody[3][count];
+
+        Rand rand = new Rand(0);
+        for(int i = 0; i < count; i++){
+            float x = rand.random(bounds.width), y = rand.random(bounds.height), radius = rand.random(4f, maxRadius), mass = rand.random(1f, 100f);
+            int layer = rand.random(2);
+            boolean local = rand.chance(0.9);
+            PhysicsWorld[] worlds = {serial, first, second};
+
+            for(int w = 0; w < 3; w++){
+                PhysicsBody body = new PhysicsBody();
+                body.x = x;
+                body.y = y;
+                body.radius = radius;
+                body.mass = mass;
+                body.layer = layer;
+                body.local = local;
+                bodies[w][i] = body;
+                worlds[w].add(body);
+            }
+        }
+
+        serial.updateSerial();
+        first.updateParallel(4);
+        second.updateParallel(4);
+
+        float maxError = 0f;
+        for(int i = 0; i < count; i++){
+            PhysicsBody a = bodies[1][i], b = bodies[2][i];
+            assertTrue(a.x == b.x && a.y == b.y, "Parallel physics must not depend on thread timing.");
+
+            maxError = Math.max(maxError, Mathf.dst(a.x, a.y, bodies[0][i].x, bodies[0][i].y));
+        }
+
+        //bodies only differ in the order their overlaps are resolved in, so they never end up more than one contact apart
+        assertTrue(maxError <= maxRadius * 2f, "Parallel physics must match the serial solver within tolerance.");
+    }
+
+    @Test
+    void chunkedSaveRoundtrip(){
+        Tiles tiles = wallMap();
+
+        int[] blocks = new int[tiles.width * tiles.height];
+        for(int i = 0; i < blocks.length; i++){
+            blocks[i] = tiles.geti(i).blockID();
+        }
+
+        Fi current = saveDirectory.child("chunked.msav"), legacy = saveDirectory.child("legacy.msav");
+
+        //saves stay readable by other builds unless chunked saves are enabled
+        assertEquals(SaveIO.defaultVersion, SaveIO.getVersion().version);
+
+        SaveIO.write(current, null, SaveIO.chunkedVersion);
+        SaveIO.write(legacy);
+
+        for(Fi file : new Fi[]{current, legacy}){
+            resetWorld();
+            SaveIO.load(file);
+
+            assertEquals(500, world.width());
+            for(int i = 0; i < blocks.length; i++){
+                assertEquals(blocks[i], world.tiles.geti(i).blockID(), "Blocks must survive saving.");
+            }
+        }
+
+        assertTrue(SaveIO.isSaveValid(current), "Chunked save meta must be readable.");
+        assertTrue(SaveIO.isSaveValid(legacy), "Legacy save meta must be readable.");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void chunkedSaveBench(){
+        wallMap();
+        Fi current = saveDirectory.child("chunked.msav"), legacy = saveDirectory.child("legacy.msav");
+
+        long start = Time.nanos();
+        SaveIO.write(current, null, SaveIO.chunkedVersion);
+        Log.info("Chunked save written in @ms", Time.timeSinceNanos(start) / 1000000f);
+        start = Time.nanos();
+        SaveIO.write(legacy);
+        Log.info("Legacy save written in @ms", Time.timeSinceNanos(start) / 1000000f);
+
+        for(Fi file : new Fi[]{current, legacy}){
+            resetWorld();
+            start = Time.nanos();
+            SaveIO.load(file);
+            Log.info("@ loaded in @ms", file.name(), Time.timeSinceNanos(start) / 1000000f);
+        }
+    }
+
+    /** A 500x500 map with 20000 randomly placed walls. */
+    Tiles wallMap(){
+        Rand rand = new Rand(0);
+        return emptyMap(500, 500, tiles -> {
+            for(int i = 0; i < 20000; i++){
+                tiles.get(rand.random(499), rand.random(499)).setBlock(rand.chance(0.5) ? Blocks.copperWall : Blocks.stoneWall);
+            }
+        });
+    }
+
+    @Test
+    void snapshotSave() throws Exception{
+        world.loadMap(testMap);
+        UnitTypes.dagger.spawn(Team.sharded, 20f, 30f);
+
+        SaveSnapshot snapshot = SaveIO.snapshot();
+        //changes after the snapshot must not end up in the save
+        Groups.unit.clear();
+
+        Fi file = saveDirectory.child("snapshot.msav");
+        Thread thread = new Thread(() -> snapshot.save(file));
+        thread.start();
+        thread.join();
+
+        resetWorld();
+        SaveIO.load(file);
+        assertNotNull(Groups.unit.find(u -> u.type == UnitTypes.dagger), "Snapshot must contain the state at the time it was taken.");
+        assertFalse(file.sibling("tmp_" + file.name()).exists(), "Temporary save file must be moved into place.");
+    }
+
     @Test
     void load77Save(){
         resetWorld();
@@ -0,0 +1,96 @@
+package power;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.gen.*;
+import mindustry.world.*;
+import mindustry.world.blocks.power.*;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Splits a large power grid by destroying a whole line of it in one tick,
+ * with removals applied right away and deferred to the next graph update.
+ */
+public class PowerGraphRemovalTests extends PowerTestFixture{
+    static final int size = 70;
+
+    /** Time the last call to {@link #removeColumn(boolean)} spent removing buildings, in nanoseconds. */
+    long removalTime;
+
+    @Test
+    void removalBurst(){
+        int[] immediate = removeColumn(false), deferred = removeColumn(true);
+
+        assertArrayEquals(immediate, deferred, "Deferred removals must split the grid like immediate ones.");
+        assertNotEquals(deferred[0], deferred[size - 1], "Both sides of the removed column must be separate graphs.");
+    }
+
+    @Test
+    @Tag("benchmark")
+    void removalBurstBench(){
+        for(boolean defer : new boolean[]{false, true}){
+            removeColumn(defer);
+            Log.info("@ removals from a @-building grid: @ms (@)", size, size * size, removalTime / 1000000f, defer ? "deferred" : "immediate");
+        }
+    }
+
+    /** @return for every building of the grid, the index of the first building in its graph; -1 for removed ones. */
+    int[] removeColumn(boolean defer){
+        PowerGraph.deferRemoval = defer;
+
+        Block battery = createFakeBattery(10f);
+        Building[] grid = new Building[size * size];
+        for(int y = 0; y < size; y++){
+            for(int x = 0; x < size; x++){
+                grid[y * size + x] = createFakeTile(x, y, battery).build;
+            }
+        }
+
+        for(int y = 0; y < size; y++){
+            for(int x = 0; x < size; x++){
+                Building build = grid[y * size + x];
+                if(x > 0) build.proximity.add(grid[y * size + x - 1]);
+                if(x < size - 1) build.proximity.add(grid[y * size + x + 1]);
+                if(y > 0) build.proximity.add(grid[(y - 1) * size + x]);
+                if(y < size - 1) build.proximity.add(grid[(y + 1) * size + x]);
+            }
+        }
+
+        for(Building build : grid){
+            build.updatePowerGraph();
+        }
+        assertEquals(size * size, grid[0].power.graph.all.size);
+
+        //a line of buildings destroyed by one volley, like removeFromProximity does it
+        int column = size / 2;
+        long start = Time.nanos();
+        for(int y = 0; y < size; y++){
+            Building build = grid[y * size + column];
+            build.power.graph.remove(build);
+            for(Building other : build.proximity){
+                other.proximity.remove(build, true);
+            }
+            build.proximity.clear();
+        }
+        //deferred removals are applied by the next update
+        grid[0].power.graph.update();
+        grid[size - 1].power.graph.update();
+        removalTime = Time.timeSinceNanos(start);
+
+        PowerGraph.deferRemoval = true;
+
+        int[] labels = new int[grid.length];
+        ObjectIntMap<PowerGraph> first = new ObjectIntMap<>();
+        for(int i = 0; i < grid.length; i++){
+            if(i % size == column){
+                labels[i] = -1;
+            }else{
+                labels[i] = first.get(grid[i].power.graph, i);
+                first.put(grid[i].power.graph, labels[i]);
+            }
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,69 @@
+package power;
+
+import arc.math.*;
+import mindustry.world.*;
+import mindustry.world.blocks.power.PowerGenerator.*;
+import mindustry.world.blocks.power.*;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Checks that PowerGraph::update() gives exactly the results of balancing a graph through its public methods. */
+public class PowerGraphUpdateTests extends PowerTestFixture{
+
+    @Test
+    void updateMatchesPublicMethods(){
+        Block producer = createFakeProducerBlock(4f), consumer = createFakeDirectConsumer(1.5f), battery = createFakeBattery(37f);
+        Tile[][] tiles = new Tile[2][];
+        PowerGraph[] graphs = new PowerGraph[2];
+
+        for(int g = 0; g < 2; g++){
+            tiles[g] = new Tile[]{
+                createFakeTile(0, 0, producer), createFakeTile(1, 0, producer),
+                createFakeTile(2, 0, consumer), createFakeTile(3, 0, consumer), createFakeTile(4, 0, consumer),
+                createFakeTile(5, 0, battery), createFakeTile(6, 0, battery)
+            };
+            graphs[g] = new PowerGraph();
+            for(Tile tile : tiles[g]){
+                graphs[g].add(tile.build);
+            }
+            tiles[g][5].build.power.status = 0.3f;
+            tiles[g][6].build.enabled = false;
+        }
+
+        Rand rand = new Rand(1);
+        for(int i = 0; i < 200; i++){
+            //swing between surplus and deficit
+            float efficiency = rand.random(1f);
+            for(int g = 0; g < 2; g++){
+                ((GeneratorBuild)tiles[g][0].build).productionEfficiency = efficiency;
+                ((GeneratorBuild)tiles[g][1].build).productionEfficiency = efficiency * 0.5f;
+            }
+
+            graphs[0].update();
+            balance(graphs[1]);
+
+            for(int t = 0; t < tiles[0].length; t++){
+                assertEquals(tiles[1][t].build.power.status, tiles[0][t].build.power.status, "Status of building " + t + " differs in update " + i);
+            }
+        }
+    }
+
+    /** The graph update as it is written in terms of the public methods. */
+    static void balance(PowerGraph graph){
+        float powerNeeded = graph.getPowerNeeded();
+        float powerProduced = graph.getPowerProduced();
+        boolean charged = false;
+
+        if(!Mathf.equal(powerNeeded, powerProduced)){
+            if(powerNeeded > powerProduced){
+                powerProduced += graph.useBatteries(powerNeeded - powerProduced);
+            }else{
+                charged = true;
+                powerProduced -= graph.chargeBatteries(powerProduced - powerNeeded);
+            }
+        }
+
+        graph.distributePower(powerNeeded, powerProduced, charged);
+    }
+}